@@ -0,0 +1,18 @@
+plugins {
+    id("me.champeau.jmh") version "0.6.8"
+}
+
+dependencies {
+    jmh(project(":core"))
+    jmh(project(":"))
+}
+
+jmh {
+    jmhVersion.set(libraries.versions.jmh.get())
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    // machine-readable results, named after the version so runs can be compared across releases
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results-${project.version}.json"))
+}
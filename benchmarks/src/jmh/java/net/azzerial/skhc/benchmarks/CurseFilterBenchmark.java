@@ -0,0 +1,158 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.benchmarks;
+
+import com.threerings.crowd.chat.client.AutomatonCurseFilter;
+import com.threerings.crowd.chat.client.CurseFilter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurseFilterBenchmark {
+
+    private static final int MESSAGES = 4096;
+    private static final int VOCABULARY = 2000;
+
+    @Param({"50", "500"})
+    public int words;
+
+    @Param({"COMIC", "VERNACULAR"})
+    public CurseFilter.Mode mode;
+
+    private String[] messages;
+    private CurseFilter regexFilter;
+    private CurseFilter automatonFilter;
+
+    /* Methods */
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x5eed);
+        final CurseFilter.Mode filterMode = mode;
+
+        final String[] curses = new String[words];
+        final StringBuilder curseWords = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            curses[i] = randomWord(random, 4, 8);
+
+            final String leading = (i % 4 == 0) ? "*" : "";
+            final String trailing = (i % 3 == 0) ? "*" : "";
+            curseWords.append(leading).append(curses[i]).append(trailing)
+                .append('=').append("word_").append(i).append(' ');
+        }
+
+        final StringBuilder stopWords = new StringBuilder();
+        for (int i = 0; i < words / 10; i++) {
+            stopWords.append((i % 2 == 0) ? "*" : "").append(randomWord(random, 6, 10)).append(' ');
+        }
+
+        final String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = randomWord(random, 2, 10);
+        }
+
+        this.messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final StringBuilder message = new StringBuilder();
+            final int length = 6 + random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                if (j > 0) {
+                    final int separator = random.nextInt(16);
+                    message.append(separator < 2 ? ", " : separator == 2 ? "_" : " ");
+                }
+
+                if (random.nextInt(50) == 0) {
+                    final String curse = curses[random.nextInt(words)];
+                    message.append(random.nextBoolean() ? Character.toUpperCase(curse.charAt(0)) + curse.substring(1) : curse);
+                } else {
+                    message.append(vocabulary[random.nextInt(VOCABULARY)]);
+                    if (random.nextInt(16) == 0) {
+                        message.append(random.nextInt(100));
+                    }
+                }
+            }
+            messages[i] = message.append(random.nextBoolean() ? "!" : ".").toString();
+        }
+
+        this.regexFilter = newRegexFilter(curseWords.toString(), stopWords.toString(), filterMode);
+        this.automatonFilter = newAutomatonFilter(curseWords.toString(), stopWords.toString(), filterMode);
+
+        // the comic replacements are random, compare the filters on the deterministic modes instead
+        for (CurseFilter.Mode checkMode : new CurseFilter.Mode[] {CurseFilter.Mode.VERNACULAR, CurseFilter.Mode.DROP}) {
+            final CurseFilter expected = newRegexFilter(curseWords.toString(), stopWords.toString(), checkMode);
+            final CurseFilter actual = newAutomatonFilter(curseWords.toString(), stopWords.toString(), checkMode);
+            for (String message : messages) {
+                final String expectedOutput = expected.filter(message, null, false);
+                final String actualOutput = actual.filter(message, null, false);
+                if (!Objects.equals(expectedOutput, actualOutput)) {
+                    throw new IllegalStateException("The filters disagree in " + checkMode + " mode on \"" + message + "\": \"" +
+                        expectedOutput + "\" != \"" + actualOutput + "\"");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void regex(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(regexFilter.filter(message, null, false));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public void automaton(Blackhole blackhole) {
+        for (String message : messages) {
+            blackhole.consume(automatonFilter.filter(message, null, false));
+        }
+    }
+
+    /* Internal */
+
+    private static CurseFilter newRegexFilter(String curseWords, String stopWords, CurseFilter.Mode filterMode) {
+        return new CurseFilter(curseWords, stopWords) {
+            @Override
+            public Mode getFilterMode() {
+                return filterMode;
+            }
+        };
+    }
+
+    private static CurseFilter newAutomatonFilter(String curseWords, String stopWords, CurseFilter.Mode filterMode) {
+        return new AutomatonCurseFilter(curseWords, stopWords) {
+            @Override
+            public Mode getFilterMode() {
+                return filterMode;
+            }
+        };
+    }
+
+    private static String randomWord(Random random, int minLength, int maxLength) {
+        final char[] chars = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
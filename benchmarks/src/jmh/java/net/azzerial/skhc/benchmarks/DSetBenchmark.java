@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.benchmarks;
+
+import com.threerings.presents.dobj.DSet;
+import com.threerings.presents.dobj.SimpleEntry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DSetBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private List<SimpleEntry<Integer>> entries;
+    private List<Comparable<?>> keys;
+    private Integer[] lookups;
+    private BenchmarkSet populated;
+
+    /* Methods */
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(0x5eed);
+
+        this.entries = new ArrayList<>(size);
+        this.keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new SimpleEntry<>(i * 3));
+            keys.add(i * 3);
+        }
+        Collections.shuffle(entries, random);
+        Collections.shuffle(keys, random);
+
+        this.lookups = new Integer[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = random.nextInt(size * 3);
+        }
+
+        this.populated = new BenchmarkSet(indexed);
+        populated.insertAll(entries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void get(Blackhole blackhole) {
+        for (Integer key : lookups) {
+            blackhole.consume(populated.get(key));
+        }
+    }
+
+    @Benchmark
+    public BenchmarkSet addOneByOne() {
+        final BenchmarkSet set = new BenchmarkSet(indexed);
+        for (SimpleEntry<Integer> entry : entries) {
+            set.insert(entry);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public BenchmarkSet addAll() {
+        final BenchmarkSet set = new BenchmarkSet(indexed);
+        set.insertAll(entries);
+        return set;
+    }
+
+    @Benchmark
+    public BenchmarkSet removeOneByOne() {
+        final BenchmarkSet set = populated.clone();
+        for (Comparable<?> key : keys) {
+            set.delete(key);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public BenchmarkSet removeAll() {
+        final BenchmarkSet set = populated.clone();
+        set.deleteAll(keys);
+        return set;
+    }
+
+    /* Inner Classes */
+
+    public static final class BenchmarkSet extends DSet<SimpleEntry<Integer>> {
+
+        private final boolean indexed;
+
+        public BenchmarkSet(boolean indexed) {
+            this.indexed = indexed;
+        }
+
+        /* Methods */
+
+        public void insert(SimpleEntry<Integer> entry) {
+            add(entry);
+        }
+
+        public void insertAll(List<SimpleEntry<Integer>> entries) {
+            addAll(entries);
+        }
+
+        public void delete(Comparable<?> key) {
+            removeKey(key);
+        }
+
+        public void deleteAll(List<Comparable<?>> keys) {
+            removeAll(keys);
+        }
+
+        // Override DSet
+
+        @Override
+        public BenchmarkSet clone() {
+            return (BenchmarkSet) super.clone();
+        }
+
+        @Override
+        protected int getIndexThreshold() {
+            return indexed ? 1024 : Integer.MAX_VALUE;
+        }
+
+        @Override
+        protected int getWarningSize() {
+            return Integer.MAX_VALUE;
+        }
+    }
+}
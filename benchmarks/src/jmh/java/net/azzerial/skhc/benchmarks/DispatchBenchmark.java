@@ -0,0 +1,218 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.benchmarks;
+
+import com.samskivert.util.RunQueue;
+import com.threerings.presents.client.Client;
+import com.threerings.presents.client.ClientDObjectMgr;
+import com.threerings.presents.dobj.AttributeChangedEvent;
+import com.threerings.presents.dobj.DEvent;
+import com.threerings.presents.dobj.DObject;
+import com.threerings.presents.dobj.Subscriber;
+import com.threerings.projectx.data.ProjectXBootstrapData;
+import com.threerings.projectx.exchange.data.ConsolidatedOffer;
+import com.threerings.projectx.exchange.data.ExchangeObject;
+import net.azzerial.skhc.SKClientBuilder;
+import net.azzerial.skhc.SKClientImpl;
+import net.azzerial.skhc.events.ListenerAdapter;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import net.azzerial.skhc.services.Service;
+import net.azzerial.skhc.services.exchange.ExchangeService;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static net.azzerial.skhc.events.exchange.ExchangeUpdateEvent.BUY_OFFERS;
+
+/**
+ * Measures the dispatch of an exchange update on the client, from {@code ClientDObjectMgr.dispatchEvent} to the registered
+ * {@link ListenerAdapter}, through the {@link ExchangeService} and the {@code EventManager}.
+ *
+ * <p>Without {@code service}, the exchange object has no listener and only the object manager dispatch is measured.
+ * <br>The runnables posted by the client, such as the periodic flush of the object manager, are held in a run queue
+ * that is only run between iterations, on the benchmark thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+    private static final int EXCHANGE_OID = 42;
+
+    @Param({"10"})
+    public int depth;
+
+    @Param({"false", "true"})
+    public boolean service;
+
+    private BenchmarkRunQueue runQueue;
+    private BenchmarkObjectMgr objectMgr;
+    private ConsolidatedOffer[][] books;
+    private int next;
+    private long received;
+
+    /* Methods */
+
+    @Setup
+    public void setup() {
+        final ProjectXBootstrapData data = new ProjectXBootstrapData();
+        data.exchangeOid = EXCHANGE_OID;
+        this.runQueue = new BenchmarkRunQueue();
+        final BenchmarkClient client = new BenchmarkClient(data, runQueue);
+        this.objectMgr = client.objectMgr;
+
+        final ExchangeObject exchange = new ExchangeObject();
+        exchange.lastPrice = 5000;
+        exchange.buyOffers = createBook(5000);
+        exchange.sellOffers = createBook(5001);
+        objectMgr.register(EXCHANGE_OID, exchange);
+
+        this.books = new ConsolidatedOffer[][] { createBook(4999), createBook(5000) };
+        if (!service) {
+            return;
+        }
+
+        // the client is only created when connecting, so hand it the stand-in client directly
+        final SKClientImpl skClient = (SKClientImpl) SKClientBuilder.create("benchmark", "benchmark")
+            .enableServices(Service.EXCHANGE)
+            .build();
+        skClient.setClient(client);
+
+        skClient.addEventListeners(new ListenerAdapter() {
+            @Override
+            public void onExchangeUpdate(@NotNull ExchangeUpdateEvent event) {
+                received++;
+            }
+        });
+        new ExchangeService(skClient).subscribe(objectMgr);
+    }
+
+    @TearDown(Level.Iteration)
+    public void runPending() {
+        runQueue.runPending();
+    }
+
+    @Benchmark
+    public long dispatchEvent() {
+        final ConsolidatedOffer[] book = books[next];
+        this.next ^= 1;
+        objectMgr.dispatch(new AttributeChangedEvent(EXCHANGE_OID, BUY_OFFERS, book));
+        return received;
+    }
+
+    /* Internal */
+
+    @NotNull
+    private ConsolidatedOffer[] createBook(int price) {
+        final ConsolidatedOffer[] offers = new ConsolidatedOffer[depth];
+        for (int i = 0; i < depth; i++) {
+            offers[i] = new ConsolidatedOffer();
+            offers[i].price = price - i;
+            offers[i].volume = 1 + (i * 37) % 1000;
+        }
+        return offers;
+    }
+
+    /* Inner Classes */
+
+    /**
+     * A client that is handed its bootstrap data and object manager without connecting to a server.
+     */
+    private static final class BenchmarkClient extends Client {
+
+        private final BenchmarkObjectMgr objectMgr;
+
+        /* Constructors */
+
+        private BenchmarkClient(@NotNull ProjectXBootstrapData data, @NotNull RunQueue runQueue) {
+            super(null, runQueue);
+            this.objectMgr = new BenchmarkObjectMgr(this);
+            _bstrap = data;
+            _omgr = objectMgr;
+        }
+    }
+
+    /**
+     * A run queue holding the posted runnables until the benchmark runs them, instead of running them on the posting thread.
+     */
+    private static final class BenchmarkRunQueue implements RunQueue {
+
+        private final Thread thread = Thread.currentThread();
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+
+        /* Methods */
+
+        @Override // RunQueue
+        public synchronized void postRunnable(Runnable runnable) {
+            pending.add(runnable);
+        }
+
+        @Override // RunQueue
+        public boolean isDispatchThread() {
+            return Thread.currentThread() == thread;
+        }
+
+        @Override // RunQueue
+        public boolean isRunning() {
+            return true;
+        }
+
+        private void runPending() {
+            Runnable runnable;
+            while ((runnable = poll()) != null) {
+                runnable.run();
+            }
+        }
+
+        private synchronized Runnable poll() {
+            return pending.poll();
+        }
+    }
+
+    /**
+     * An object manager resolving subscriptions from its own object table, and exposing its event dispatch.
+     */
+    private static final class BenchmarkObjectMgr extends ClientDObjectMgr {
+
+        /* Constructors */
+
+        private BenchmarkObjectMgr(@NotNull Client client) {
+            super(null, client);
+        }
+
+        /* Methods */
+
+        @Override // ClientDObjectMgr
+        @SuppressWarnings("unchecked")
+        public <T extends DObject> void subscribeToObject(int oid, Subscriber<T> target) {
+            target.objectAvailable((T) _ocache.get(oid));
+        }
+
+        private void register(int oid, @NotNull DObject object) {
+            object.setOid(oid);
+            object.setManager(this);
+            _ocache.put(oid, object);
+        }
+
+        private void dispatch(@NotNull DEvent event) {
+            dispatchEvent(event);
+        }
+    }
+}
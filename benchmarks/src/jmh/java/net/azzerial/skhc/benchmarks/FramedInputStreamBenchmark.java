@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.benchmarks;
+
+import com.threerings.io.FramedInputStream;
+import com.threerings.io.FramingOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FramedInputStreamBenchmark {
+
+    private static final int FRAMES = 256;
+
+    @Param({"64", "1024", "16384"})
+    public int frameSize;
+
+    @Param({"1460", "65536"})
+    public int chunkSize;
+
+    private SyntheticChannel channel;
+    private FramedInputStream input;
+    private byte[] sink;
+
+    /* Methods */
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(0x5eed);
+        final byte[] payload = new byte[frameSize];
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        final FramingOutputStream framing = new FramingOutputStream();
+        for (int i = 0; i < FRAMES; i++) {
+            random.nextBytes(payload);
+            framing.write(payload);
+            final ByteBuffer frame = framing.frameAndReturnBuffer();
+            stream.write(frame.array(), frame.arrayOffset(), frame.remaining());
+            framing.resetFrame();
+        }
+
+        this.channel = new SyntheticChannel(stream.toByteArray(), chunkSize);
+        this.input = new FramedInputStream();
+        this.sink = new byte[frameSize];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public int readFrame() throws IOException {
+        int read = 0;
+        for (int frames = 0; frames < FRAMES; ) {
+            if (input.readFrame(channel)) {
+                read += input.read(sink, 0, sink.length);
+                frames++;
+            }
+        }
+        return read;
+    }
+
+    /* Inner Classes */
+
+    /**
+     * A channel endlessly replaying the same frames, handing out at most {@code chunkSize} bytes per read as a socket would.
+     */
+    private static final class SyntheticChannel implements ReadableByteChannel {
+
+        private final byte[] data;
+        private final int chunkSize;
+        private int position;
+
+        /* Constructors */
+
+        private SyntheticChannel(byte[] data, int chunkSize) {
+            this.data = data;
+            this.chunkSize = chunkSize;
+        }
+
+        /* Methods */
+
+        @Override // ReadableByteChannel
+        public int read(ByteBuffer dst) {
+            final int length = Math.min(Math.min(dst.remaining(), chunkSize), data.length - position);
+            dst.put(data, position, length);
+            position += length;
+            if (position == data.length) {
+                this.position = 0;
+            }
+            return length;
+        }
+
+        @Override // Channel
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override // Channel
+        public void close() {}
+    }
+}
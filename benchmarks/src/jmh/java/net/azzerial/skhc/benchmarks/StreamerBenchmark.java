@@ -0,0 +1,97 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.benchmarks;
+
+import com.threerings.io.FramingOutputStream;
+import com.threerings.io.ObjectInputStream;
+import com.threerings.io.ObjectOutputStream;
+import com.threerings.presents.dobj.AttributeChangedEvent;
+import com.threerings.presents.net.EventNotification;
+import com.threerings.projectx.exchange.data.ConsolidatedOffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StreamerBenchmark {
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private EventNotification notification;
+    private FramingOutputStream framingOut;
+    private ObjectOutputStream objectOut;
+    private ByteArrayInputStream bytesIn;
+    private ObjectInputStream objectIn;
+
+    /* Methods */
+
+    @Setup
+    public void setup() throws IOException {
+        final ConsolidatedOffer[] offers = new ConsolidatedOffer[depth];
+        for (int i = 0; i < depth; i++) {
+            offers[i] = new ConsolidatedOffer();
+            offers[i].price = 5000 - i;
+            offers[i].volume = 1 + (i * 37) % 1000;
+        }
+        this.notification = new EventNotification(new AttributeChangedEvent(42, "buyOffers", offers));
+
+        // long-lived streams, as on a connection: class mappings are only sent with the first message
+        this.framingOut = new FramingOutputStream();
+        this.objectOut = new ObjectOutputStream(framingOut);
+        encode();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(notification);
+        out.flush();
+        out.writeObject(notification);
+        out.flush();
+
+        // replay the second message, which only references the classes mapped by the first one
+        this.bytesIn = new ByteArrayInputStream(bytes.toByteArray());
+        this.objectIn = new ObjectInputStream(bytesIn);
+        try {
+            objectIn.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+        bytesIn.mark(0);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        objectOut.writeObject(notification);
+        objectOut.flush();
+        final ByteBuffer buffer = framingOut.frameAndReturnBuffer();
+        final int size = buffer.remaining();
+        framingOut.resetFrame();
+        return size;
+    }
+
+    @Benchmark
+    public Object decode() throws IOException, ClassNotFoundException {
+        bytesIn.reset();
+        return objectIn.readObject();
+    }
+}
@@ -76,6 +76,33 @@ dependencies {
     implementation(project(":core"))
 }
 
+// Class Data Sharing //
+
+// dumps the classes loaded by :simulator:startupProfile into an AppCDS archive of the shaded jar (JDK 11+),
+// to be used with: java -XX:SharedArchiveFile=build/cds/skhc.jsa -cp <withDependencies jar>:<application> ...
+// the archive is only valid for the JDK that built it and a classpath starting with the same jar
+tasks.register<Exec>("cdsArchive") {
+    group = "distribution"
+    description = "Builds an AppCDS archive of the withDependencies jar from a recorded client session."
+    dependsOn(tasks.shadowJar, ":simulator:startupProfile")
+
+    val cdsDirectory = layout.buildDirectory.dir("cds").get().asFile
+    val classList = File(cdsDirectory, "classes.lst")
+    val archive = File(cdsDirectory, "skhc.jsa")
+    inputs.files(tasks.shadowJar, classList)
+    outputs.file(archive)
+
+    doFirst {
+        commandLine(
+                File(System.getProperty("java.home"), "bin/java").absolutePath,
+                "-Xshare:dump",
+                "-XX:SharedClassListFile=${classList.absolutePath}",
+                "-XX:SharedArchiveFile=${archive.absolutePath}",
+                "-cp", tasks.shadowJar.get().archiveFile.get().asFile.absolutePath
+        )
+    }
+}
+
 // Publishing //
 
 fun MavenPom.populate() {
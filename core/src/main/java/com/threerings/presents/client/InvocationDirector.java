@@ -24,13 +24,18 @@ package com.threerings.presents.client;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.samskivert.util.HashIntMap;
+import com.samskivert.util.Interval;
 import com.threerings.presents.client.InvocationReceiver.Registration;
 import com.threerings.presents.data.ClientObject;
+import com.threerings.presents.data.InvocationCodes;
+import com.threerings.presents.data.InvocationMarshaller.ConfirmMarshaller;
 import com.threerings.presents.data.InvocationMarshaller.ListenerMarshaller;
+import com.threerings.presents.data.InvocationMarshaller.ResultMarshaller;
 import com.threerings.presents.dobj.*;
 import com.threerings.presents.net.Transport;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 
 import static com.threerings.presents.Log.log;
@@ -107,10 +112,17 @@ public class InvocationDirector
      */
     public void cleanup ()
     {
+        // stop expiring listeners
+        if (_expireInterval != null) {
+            _expireInterval.cancel();
+            _expireInterval = null;
+        }
+
         // wipe our client object, receiver mappings and listener mappings
         _clobj = null;
         _receivers.clear();
         _listeners.clear();
+        _listenerWheel.clear();
 
         // also reset our counters
         _requestId = 0;
@@ -194,7 +206,7 @@ public class InvocationDirector
 
     /**
      * Requests that the specified invocation request be packaged up and sent to the supplied
-     * invocation oid.
+     * invocation oid. This may be called from any thread.
      */
     public void sendRequest (int invOid, int invCode, int methodId, Object[] args)
     {
@@ -207,6 +219,98 @@ public class InvocationDirector
      */
     public void sendRequest (
         int invOid, int invCode, int methodId, Object[] args, Transport transport)
+    {
+        sendRequest(invOid, invCode, methodId, args, transport, _listenerMaxAge);
+    }
+
+    /**
+     * Sends the specified invocation request, whose last argument is an {@link
+     * InvocationService.ResultListener} which is supplied by the returned future rather than
+     * included in <code>args</code>. This may be called from any thread.
+     *
+     * @param resultType the expected type of the result, checked when it arrives.
+     * @param timeout the time to wait for a response, in milliseconds, after which the future
+     * fails, or zero to use the maximum listener age.
+     */
+    public <T> InvocationFuture<T> requestResult (
+        int invOid, int invCode, int methodId, Object[] args, Class<T> resultType, long timeout)
+    {
+        return sendRequest(invOid, invCode, methodId, args, new ResultMarshaller(),
+                           new InvocationFuture<T>(this, resultType), timeout);
+    }
+
+    /**
+     * Sends the specified invocation request, whose last argument is an {@link
+     * InvocationService.ConfirmListener} which is supplied by the returned future rather than
+     * included in <code>args</code>. This may be called from any thread.
+     *
+     * @param timeout the time to wait for a response, in milliseconds, after which the future
+     * fails, or zero to use the maximum listener age.
+     */
+    public InvocationFuture<Void> requestConfirm (
+        int invOid, int invCode, int methodId, Object[] args, long timeout)
+    {
+        return sendRequest(invOid, invCode, methodId, args, new ConfirmMarshaller(),
+                           new InvocationFuture<Void>(this, null), timeout);
+    }
+
+    /**
+     * Stops waiting for a response via the supplied listener marshaller, which will neither be
+     * responded to nor expired. This may be called from any thread.
+     */
+    public void cancelRequest (ListenerMarshaller listener)
+    {
+        _listeners.remove(listener.requestId, listener);
+    }
+
+    /**
+     * Sends an invocation request whose response is reported to the supplied future.
+     */
+    protected <T> InvocationFuture<T> sendRequest (
+        int invOid, int invCode, int methodId, Object[] args, ListenerMarshaller listener,
+        InvocationFuture<T> future, long timeout)
+    {
+        if (_clobj == null) {
+            future.completeExceptionally(new IllegalStateException(
+                "Invocation director is not logged on [code=" + invCode +
+                ", methodId=" + methodId + "]"));
+            return future;
+        }
+
+        future.setMarshaller(listener);
+        Object[] fargs = Arrays.copyOf(args, args.length + 1);
+        fargs[args.length] = listener;
+        sendRequest(invOid, invCode, methodId, fargs, Transport.DEFAULT,
+                    (timeout > 0) ? timeout : _listenerMaxAge);
+        return future;
+    }
+
+    /**
+     * Starts expiring the listeners which do not get a response in time, whether or not other
+     * responses keep coming in. This is only done once the first listener is mapped, so that a
+     * session making no request with a listener doesn't tick an empty wheel.
+     */
+    protected void startExpiring ()
+    {
+        if (_expireInterval == null) {
+            _expireInterval = new Interval(_client.getRunQueue()) {
+                @Override public void expired () {
+                    flushListeners(System.currentTimeMillis());
+                }
+                @Override public String toString () {
+                    return "InvocationDirector.expireInterval";
+                }
+            };
+            _expireInterval.schedule(LISTENER_WHEEL_TICK, true);
+        }
+    }
+
+    /**
+     * Packages up and sends the specified invocation request, failing its listeners if no
+     * response arrives within the supplied number of milliseconds.
+     */
+    protected void sendRequest (
+        int invOid, int invCode, int methodId, Object[] args, Transport transport, long maxAge)
     {
         if (_clobj == null) {
             log.warning("Dropping invocation request on shutdown director", "code", invCode,
@@ -223,8 +327,10 @@ public class InvocationDirector
                 lm.requestId = nextRequestId();
                 lm.mapStamp = System.currentTimeMillis();
                 // create a mapping for this marshaller so that we can properly dispatch responses
-                // sent to it
+                // sent to it, and fail it if no response arrives in time
                 _listeners.put(lm.requestId, lm);
+                _listenerWheel.schedule(lm, lm.mapStamp + maxAge);
+                startExpiring();
             }
         }
 
@@ -273,7 +379,7 @@ public class InvocationDirector
         ListenerMarshaller listener = _listeners.remove(reqId);
         if (listener == null) {
             log.warning("Received invocation response for which we have no registered listener. " +
-                        "It is possible that this listener was flushed because the response did " +
+                        "It is possible that this listener was expired because the response did " +
                         "not arrive within " + _listenerMaxAge + " milliseconds.",
                         "reqId", reqId, "methId", methodId, "args", args);
             return;
@@ -289,13 +395,6 @@ public class InvocationDirector
             log.warning("Invocation response listener choked", "listener", listener,
                         "methId", methodId, "args", args, t);
         }
-
-        // flush expired listeners periodically
-        long now = System.currentTimeMillis();
-        if (now - _lastFlushTime > LISTENER_FLUSH_INTERVAL) {
-            _lastFlushTime = now;
-            flushListeners(now);
-        }
     }
 
     /**
@@ -364,26 +463,31 @@ public class InvocationDirector
     }
 
     /**
-     * Flushes listener mappings that are older than {@link #_listenerMaxAge} milliseconds. An
-     * alternative to flushing listeners that did not explicitly receive a response within our
+     * Expires the listener mappings that are older than {@link #_listenerMaxAge} milliseconds,
+     * reporting the failure of their request with {@link InvocationCodes#REQUEST_TIMED_OUT}. This
+     * is called every {@link #LISTENER_WHEEL_TICK} milliseconds on the client run queue. An
+     * alternative to expiring listeners that did not explicitly receive a response within our
      * expiry time period is to have the server's proxy listener send a message to the client when
      * it is finalized. We then know that no server entity will subsequently use that proxy
      * listener to send a response to the client. This involves more network traffic and complexity
      * than seems necessary and if a user of the system does respond after their listener has been
-     * flushed, an informative warning will be logged. (Famous last words.)
+     * expired, an informative warning will be logged. (Famous last words.)
      */
     protected void flushListeners (long now)
     {
-        if (_listeners.size() > 0) {
-            long then = now - _listenerMaxAge;
-            Iterator<ListenerMarshaller> iter = _listeners.values().iterator();
-            while (iter.hasNext()) {
-                ListenerMarshaller lm = iter.next();
-                if (then > lm.mapStamp) {
-//                     com.threerings.stats.Log.info("Flushing marshaller " + lm + ".");
-                    iter.remove();
-                }
-            }
+        _listenerWheel.expire(now);
+    }
+
+    /**
+     * Called when a listener expired without receiving a response.
+     */
+    protected void listenerExpired (ListenerMarshaller listener)
+    {
+        try {
+            listener.dispatchResponse(ListenerMarshaller.REQUEST_FAILED_RSPID,
+                                      new Object[] { InvocationCodes.REQUEST_TIMED_OUT });
+        } catch (Throwable t) {
+            log.warning("Invocation listener choked on expiry", "listener", listener, t);
         }
     }
 
@@ -420,7 +524,18 @@ public class InvocationDirector
 
     /** Used to keep track of invocation service listeners which will receive responses from
      * invocation service requests. */
-    protected HashIntMap<ListenerMarshaller> _listeners = new HashIntMap<ListenerMarshaller>();
+    protected ListenerTable _listeners = new ListenerTable();
+
+    /** Used to expire the listeners which did not receive a response in time. */
+    protected ListenerWheel _listenerWheel = new ListenerWheel(
+        _listeners, LISTENER_WHEEL_TICK, LISTENER_WHEEL_SLOTS) {
+        @Override protected void expired (ListenerMarshaller listener) {
+            listenerExpired(listener);
+        }
+    };
+
+    /** Advances the listener wheel while we're logged on, once a listener has been mapped. */
+    protected Interval _expireInterval;
 
     /** Used to keep track of invocation notification receivers. */
     protected HashIntMap<InvocationDecoder> _receivers = new HashIntMap<InvocationDecoder>();
@@ -429,12 +544,12 @@ public class InvocationDirector
      * them when we go online. */
     protected ArrayList<InvocationDecoder> _reclist = Lists.newArrayList();
 
-    /** The last time we flushed our listeners. */
-    protected long _lastFlushTime;
-
     /** The max age of listeners. */
     protected long _listenerMaxAge = 90 * 1000L;
 
-    /** The minimum interval between listener flush attempts. */
-    protected static final long LISTENER_FLUSH_INTERVAL = 15000L;
+    /** The duration covered by each slot of the listener wheel, in milliseconds. */
+    protected static final long LISTENER_WHEEL_TICK = 250L;
+
+    /** The number of slots of the listener wheel, covering just over two minutes. */
+    protected static final int LISTENER_WHEEL_SLOTS = 512;
 }
\ No newline at end of file
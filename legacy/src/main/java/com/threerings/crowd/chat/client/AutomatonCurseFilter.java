@@ -0,0 +1,472 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.crowd.chat.client;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.threerings.util.Name;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import static com.threerings.crowd.Log.log;
+
+/**
+ * A {@link CurseFilter} that matches every curse and stop word in a single pass over the message
+ * using an Aho-Corasick automaton, rather than running one regular expression per curse word.
+ * The word lists use the same format as {@link CurseFilter} and are matched with the same
+ * semantics (word boundaries, wildcard characters and case folding), with a few exceptions:
+ * a <code>*</code> is only honored at the start or end of a word, at most one curse is replaced
+ * per word, the one listed first, and replacements are not filtered again by the curses listed
+ * after them.
+ */
+public abstract class AutomatonCurseFilter extends CurseFilter
+{
+    /**
+     * Creates an automaton curse filter. See {@link CurseFilter#CurseFilter} for the format of
+     * the curse and stop words.
+     */
+    public AutomatonCurseFilter (String curseWords, String stopWords)
+    {
+        super(curseWords, stopWords);
+    }
+
+    @Override // from CurseFilter
+    public String filter (String msg, Name otherUser, boolean outgoing)
+    {
+        Mode level = getFilterMode();
+        boolean filtering = (level != Mode.UNFILTERED);
+        int curses = _curseCount;
+
+        StringBuilder outbuf = null;
+        int copied = 0, state = 0, wordStart = -1;
+        // the first and last characters of the current word that curse (letters and digits) and
+        // stop word (ASCII letters) wildcards don't match, or -1
+        int curseFirst = -1, curseLast = -1, stopFirst = -1, stopLast = -1;
+        // the (pattern id, start) pairs of the patterns matched in the current word
+        int[] matches = null;
+        int matchCount = 0;
+
+        for (int ii = 0, nn = msg.length(); ii <= nn; ii++) {
+            char c = (ii < nn) ? msg.charAt(ii) : ' ';
+            if (isWordChar(c)) {
+                if (wordStart == -1) {
+                    wordStart = ii;
+                    curseFirst = curseLast = stopFirst = stopLast = -1;
+                }
+                if (!Character.isLetterOrDigit(c)) {
+                    curseFirst = (curseFirst == -1) ? ii : curseFirst;
+                    curseLast = ii;
+                }
+                if (!isAsciiLetter(c)) {
+                    stopFirst = (stopFirst == -1) ? ii : stopFirst;
+                    stopLast = ii;
+                }
+                state = step(state, fold(c));
+                boolean wordEnd = (ii + 1 == nn) || !isWordChar(msg.charAt(ii + 1));
+
+                // walk every pattern that ends at this character
+                for (int node = state; node > 0; node = _dictLink[node]) {
+                    for (int tt = _termStart[node], te = _termStart[node + 1]; tt < te; tt++) {
+                        int pid = _termIds[tt];
+                        int start = ii - _patternLength[pid] + 1;
+                        int flags = _patternFlags[pid];
+                        boolean stop = (pid >= curses);
+                        if (!stop && !filtering) {
+                            continue;
+                        }
+                        if ((flags & TRAILING) == 0 && !wordEnd) {
+                            continue;
+                        }
+                        if ((flags & LEADING) == 0) {
+                            if (start != wordStart) {
+                                continue;
+                            }
+                        } else {
+                            // the wildcard must reach back to the start of the word
+                            int first = stop ? stopFirst : curseFirst;
+                            if (first != -1 && first < start) {
+                                continue;
+                            }
+                        }
+                        if (stop && !stopWordMatches(msg, start, pid)) {
+                            continue;
+                        }
+
+                        // only keep the last occurrence of a pattern, as the greedy regular
+                        // expression would
+                        int mm = 0;
+                        while (mm < matchCount && matches[mm] != pid) {
+                            mm += 2;
+                        }
+                        if (mm == matchCount) {
+                            if (matches == null) {
+                                matches = new int[8];
+                            } else if (matchCount == matches.length) {
+                                matches = Arrays.copyOf(matches, matchCount * 2);
+                            }
+                            matches[mm] = pid;
+                            matchCount += 2;
+                        }
+                        matches[mm + 1] = start;
+                    }
+                }
+                continue;
+            }
+
+            // we're past the end of a word (or between words), see what it matched
+            wordStart = -1;
+            state = 0;
+            if (matchCount == 0) {
+                continue;
+            }
+            int best = -1, bestStart = 0;
+            for (int mm = 0; mm < matchCount; mm += 2) {
+                int pid = matches[mm], start = matches[mm + 1];
+                boolean stop = (pid >= curses);
+                if ((_patternFlags[pid] & TRAILING) != 0 &&
+                        (stop ? stopLast : curseLast) >= start + _patternLength[pid]) {
+                    continue; // the wildcard doesn't reach the end of the word
+                }
+                if (stop) {
+                    return null;
+                }
+                if (best == -1 || pid < best) {
+                    best = pid;
+                    bestStart = start;
+                }
+            }
+            matchCount = 0;
+            if (best == -1) {
+                continue;
+            }
+
+            String replacement;
+            switch (level) {
+            case DROP:
+                return null;
+
+            case COMIC:
+                replacement = comicChars(_comicLength[best]);
+                break;
+
+            case VERNACULAR:
+                replacement = _vernacular[best];
+                if (Character.isUpperCase(msg.codePointAt(bestStart))) {
+                    int firstCharLen = Character.charCount(replacement.codePointAt(0));
+                    replacement = replacement.substring(0, firstCharLen).toUpperCase() +
+                                  replacement.substring(firstCharLen);
+                }
+                break;
+
+            default:
+                log.warning("Omg? We're trying to filter chat even though we're unfiltered?");
+                replacement = msg.substring(bestStart, bestStart + _patternLength[best]);
+                break;
+            }
+
+            if (outbuf == null) {
+                outbuf = new StringBuilder(msg.length() + 16);
+            }
+            outbuf.append(msg, copied, bestStart).append(replacement);
+            copied = bestStart + _patternLength[best];
+        }
+
+        if (outbuf == null) {
+            return msg;
+        }
+        return outbuf.append(msg, copied, msg.length()).toString();
+    }
+
+    @Override // from CurseFilter
+    protected void configureCurseWords (String curseWords)
+    {
+        List<String> curses = Lists.newArrayList();
+        List<String> vernacular = Lists.newArrayList();
+        for (StringTokenizer st = new StringTokenizer(curseWords); st.hasMoreTokens(); ) {
+            String mapping = st.nextToken();
+            StringTokenizer st2 = new StringTokenizer(mapping, "=");
+            if (st2.countTokens() != 2) {
+                log.warning("Something looks wrong in the x.cursewords properties (" +
+                    mapping + "), skipping.");
+                continue;
+            }
+            curses.add(st2.nextToken());
+            vernacular.add(st2.nextToken().replace('_', ' '));
+        }
+
+        _curseWords = curses.toArray(new String[curses.size()]);
+        _vernacular = vernacular.toArray(new String[vernacular.size()]);
+        _comicLength = new int[_curseWords.length];
+        for (int ii = 0; ii < _curseWords.length; ii++) {
+            String curse = trimWildcards(_curseWords[ii]);
+            _comicLength[ii] = curse.codePointCount(0, curse.length());
+        }
+        buildAutomaton();
+    }
+
+    @Override // from CurseFilter
+    protected void configureStopWords (String stopWords)
+    {
+        List<String> words = Lists.newArrayList();
+        for (StringTokenizer st = new StringTokenizer(stopWords); st.hasMoreTokens(); ) {
+            words.add(st.nextToken());
+        }
+        _stopWords = words.toArray(new String[words.size()]);
+        buildAutomaton();
+    }
+
+    /**
+     * Returns whether the stop word with the given pattern id matches the message at the given
+     * offset. The automaton folds the case of every character, but stop words are matched like
+     * {@link CurseFilter} does, ignoring the case of ASCII letters only.
+     */
+    protected boolean stopWordMatches (String msg, int start, int pid)
+    {
+        String pattern = _patterns[pid];
+        for (int ii = 0, nn = pattern.length(); ii < nn; ii++) {
+            char p = pattern.charAt(ii), c = msg.charAt(start + ii);
+            if (isAsciiLetter(p) ? (!isAsciiLetter(c) || (p | 0x20) != (c | 0x20)) : (p != c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances the automaton from the given state on the given (case folded) character, following
+     * failure links until a transition is found or we fall back to the root.
+     */
+    protected int step (int state, char c)
+    {
+        while (true) {
+            int next = transition(state, c);
+            if (next != -1) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = _fail[state];
+        }
+    }
+
+    /**
+     * Returns the child of the given node along the given character, or -1.
+     */
+    protected int transition (int node, char c)
+    {
+        int low = _edgeStart[node], high = _edgeStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char mc = _edgeChars[mid];
+            if (mc < c) {
+                low = mid + 1;
+            } else if (mc > c) {
+                high = mid - 1;
+            } else {
+                return _edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Rebuilds the automaton from the current curse and stop words. Curse words get pattern ids
+     * matching their index, stop words follow them.
+     */
+    protected void buildAutomaton ()
+    {
+        String[] curses = (_curseWords == null) ? new String[0] : _curseWords;
+        String[] stops = (_stopWords == null) ? new String[0] : _stopWords;
+        int count = curses.length + stops.length;
+
+        _curseCount = curses.length;
+        _patterns = new String[count];
+        _patternLength = new int[count];
+        _patternFlags = new byte[count];
+
+        // first build a plain trie of all of the patterns
+        List<Map<Character, Integer>> children = Lists.newArrayList();
+        List<List<Integer>> terminals = Lists.newArrayList();
+        children.add(Maps.<Character, Integer>newTreeMap());
+        terminals.add(Lists.<Integer>newArrayList());
+        for (int pid = 0; pid < count; pid++) {
+            String word = (pid < curses.length) ? curses[pid] : stops[pid - curses.length];
+            byte flags = 0;
+            if (word.startsWith("*")) {
+                flags |= LEADING;
+            }
+            if (word.length() > 1 && word.endsWith("*")) {
+                flags |= TRAILING;
+            }
+            String core = trimWildcards(word);
+            _patterns[pid] = core;
+            _patternFlags[pid] = flags;
+            _patternLength[pid] = core.length();
+            if (core.length() == 0 || core.indexOf('*') != -1) {
+                log.warning("Unsupported filter word, skipping.", "word", word);
+                continue;
+            }
+
+            int node = 0;
+            for (int ii = 0; ii < core.length(); ii++) {
+                Character c = fold(core.charAt(ii));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(c, next);
+                    children.add(Maps.<Character, Integer>newTreeMap());
+                    terminals.add(Lists.<Integer>newArrayList());
+                }
+                node = next;
+            }
+            terminals.get(node).add(pid);
+        }
+
+        // then flatten it into arrays, with the edges of each node sorted by character
+        int nodes = children.size(), edges = nodes - 1, terms = 0;
+        for (List<Integer> term : terminals) {
+            terms += term.size();
+        }
+        _edgeStart = new int[nodes + 1];
+        _edgeChars = new char[edges];
+        _edgeTargets = new int[edges];
+        _termStart = new int[nodes + 1];
+        _termIds = new int[terms];
+        for (int node = 0, ee = 0, tt = 0; node < nodes; node++) {
+            _edgeStart[node] = ee;
+            for (Map.Entry<Character, Integer> edge : children.get(node).entrySet()) {
+                _edgeChars[ee] = edge.getKey();
+                _edgeTargets[ee++] = edge.getValue();
+            }
+            _termStart[node] = tt;
+            for (Integer pid : terminals.get(node)) {
+                _termIds[tt++] = pid;
+            }
+        }
+        _edgeStart[nodes] = edges;
+        _termStart[nodes] = terms;
+
+        // finally compute the failure and dictionary links breadth first
+        _fail = new int[nodes];
+        _dictLink = new int[nodes];
+        int[] queue = new int[nodes];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int ee = _edgeStart[node]; ee < _edgeStart[node + 1]; ee++) {
+                int child = _edgeTargets[ee];
+                int fail = (node == 0) ? 0 : step(_fail[node], _edgeChars[ee]);
+                _fail[child] = fail;
+                _dictLink[child] = (_termStart[fail] != _termStart[fail + 1])
+                    ? fail : _dictLink[fail];
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the given character is part of a word, as the <code>\b</code> boundary of
+     * a regular expression sees it.
+     */
+    protected static boolean isWordChar (char c)
+    {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Returns whether the given character is an ASCII letter, the only characters matched by the
+     * wildcards of the stop words.
+     */
+    protected static boolean isAsciiLetter (char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Folds the case of the given character the way a case insensitive regular expression does,
+     * character by character, so that offsets in the folded text match those in the message.
+     */
+    protected static char fold (char c)
+    {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Strips a leading and trailing wildcard from the given word.
+     */
+    protected static String trimWildcards (String word)
+    {
+        int start = word.startsWith("*") ? 1 : 0;
+        int end = (word.length() > start && word.endsWith("*")) ? word.length() - 1 : word.length();
+        return word.substring(start, end);
+    }
+
+    /** The raw curse words, with their wildcards, parallel to {@link #_vernacular}. */
+    protected String[] _curseWords;
+
+    /** The raw stop words, with their wildcards. */
+    protected String[] _stopWords;
+
+    /** The number of curse words, stop word pattern ids start here. */
+    protected int _curseCount;
+
+    /** The text of each pattern without its wildcards. */
+    protected String[] _patterns;
+
+    /** The length of each pattern without its wildcards. */
+    protected int[] _patternLength;
+
+    /** The {@link #LEADING} and {@link #TRAILING} flags of each pattern. */
+    protected byte[] _patternFlags;
+
+    /** The offset of each node's edges in {@link #_edgeChars} and {@link #_edgeTargets}. */
+    protected int[] _edgeStart;
+
+    /** The (sorted per node) characters labeling each edge of the automaton. */
+    protected char[] _edgeChars;
+
+    /** The node reached along each edge of the automaton. */
+    protected int[] _edgeTargets;
+
+    /** The failure link of each node. */
+    protected int[] _fail;
+
+    /** The closest node along each node's failure chain that terminates a pattern, or 0. */
+    protected int[] _dictLink;
+
+    /** The offset of each node's terminated patterns in {@link #_termIds}. */
+    protected int[] _termStart;
+
+    /** The ids of the patterns terminating at each node. */
+    protected int[] _termIds;
+
+    /** Flags a pattern that may be preceded by other word characters. */
+    protected static final byte LEADING = 1;
+
+    /** Flags a pattern that may be followed by other word characters. */
+    protected static final byte TRAILING = 2;
+}
@@ -0,0 +1,392 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.crowd.chat.client;
+
+import com.google.common.io.CountingOutputStream;
+import com.samskivert.util.LoopingThread;
+import com.threerings.crowd.chat.data.ChatMessage;
+import com.threerings.crowd.chat.data.SystemMessage;
+import com.threerings.crowd.chat.data.UserMessage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPOutputStream;
+
+import static com.threerings.crowd.Log.log;
+
+/**
+ * Captures chat messages to compressed rolling files for headless clients that log chat for long
+ * periods of time. Messages are handed off through a fixed size lock-free ring buffer to a writer
+ * thread which serializes them in batches, so the memory used stays flat no matter how long the
+ * session runs. When the writer falls behind, new messages are dropped (and counted) rather than
+ * queued.
+ *
+ * <p> Each file is a gzipped sequence of records, each written with a {@link DataOutputStream}:
+ *
+ * <pre>
+ * long timestamp, byte kind, utf localtype, (utf speaker, byte mode | byte attentionLevel),
+ * utf message
+ * </pre>
+ *
+ * where kind is {@link #USER_RECORD} or {@link #SYSTEM_RECORD} and null strings are written as
+ * empty strings.
+ *
+ * @see ChatDirector#setCapture
+ */
+public class ChatCapture
+{
+    /** The kind of a record holding a {@link UserMessage}. */
+    public static final byte USER_RECORD = 0;
+
+    /** The kind of a record holding a {@link SystemMessage}. */
+    public static final byte SYSTEM_RECORD = 1;
+
+    /**
+     * Creates a chat capture writing to files in the given directory.
+     *
+     * @param prefix the prefix of each capture file name, which is followed by the time the file
+     * was started.
+     * @param capacity the number of messages the ring buffer can hold, rounded up to a power of
+     * two.
+     * @param rollSize the number of (uncompressed) bytes after which to start a new file.
+     */
+    public ChatCapture (File directory, String prefix, int capacity, long rollSize)
+    {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        _directory = directory;
+        _prefix = prefix;
+        _rollSize = rollSize;
+        _slots = new AtomicReferenceArray<ChatMessage>(size);
+        _mask = size - 1;
+    }
+
+    /**
+     * Starts the writer thread. Messages offered before this is called are held in the ring
+     * buffer until it fills up.
+     */
+    public synchronized void start ()
+    {
+        if (_writer == null) {
+            _writer = new Writer();
+            _writer.start();
+        }
+    }
+
+    /**
+     * Stops the writer thread once it has written out the messages already in the ring buffer and
+     * closes the current file.
+     */
+    public synchronized void shutdown ()
+    {
+        if (_writer != null) {
+            _writer.shutdown();
+            _writer = null;
+        }
+    }
+
+    /**
+     * Queues the given message for capture. This may be called from any thread and never blocks.
+     *
+     * @return false if the message was dropped, because the ring buffer is full or the message is
+     * neither a {@link UserMessage} nor a {@link SystemMessage}.
+     */
+    public boolean offer (ChatMessage message)
+    {
+        if (!(message instanceof UserMessage) && !(message instanceof SystemMessage)) {
+            return false;
+        }
+        while (true) {
+            long tail = _tail.get();
+            if (tail - _head.get() > _mask) {
+                _dropped.incrementAndGet();
+                return false;
+            }
+            if (_tail.compareAndSet(tail, tail + 1)) {
+                // publish with a volatile write so that either we see the writer waiting, or it
+                // sees our message before it parks
+                _slots.set((int)(tail & _mask), message);
+                Writer writer = _writer;
+                if (writer != null && writer._waiting) {
+                    LockSupport.unpark(writer);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of messages dropped because the ring buffer was full.
+     */
+    public long getDroppedCount ()
+    {
+        return _dropped.get();
+    }
+
+    /**
+     * Returns the number of messages written out so far.
+     */
+    public long getWrittenCount ()
+    {
+        return _written.get();
+    }
+
+    /**
+     * Writes out up to <code>max</code> messages from the ring buffer. Only called from the
+     * writer thread.
+     *
+     * @return the number of messages written.
+     */
+    protected int drain (int max)
+        throws IOException
+    {
+        int count = 0;
+        for (long head = _head.get(); count < max; head++, count++) {
+            int idx = (int)(head & _mask);
+            ChatMessage message = _slots.get(idx);
+            if (message == null) {
+                break; // empty, or the producer has yet to publish its slot
+            }
+            _slots.lazySet(idx, null);
+            _head.lazySet(head + 1);
+            write(message);
+        }
+        _written.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * Serializes a single message to the current file, rolling over to a new one as needed.
+     */
+    protected void write (ChatMessage message)
+        throws IOException
+    {
+        if (_out == null || _count.getCount() >= _rollSize) {
+            roll();
+        }
+
+        _out.writeLong(message.timestamp);
+        if (message instanceof UserMessage) {
+            UserMessage umsg = (UserMessage)message;
+            _out.writeByte(USER_RECORD);
+            writeString(message.localtype);
+            writeString((umsg.speaker == null) ? null : umsg.speaker.toString());
+            _out.writeByte(umsg.mode);
+
+        } else {
+            _out.writeByte(SYSTEM_RECORD);
+            writeString(message.localtype);
+            _out.writeByte(((SystemMessage)message).attentionLevel);
+        }
+        writeString(message.message);
+    }
+
+    /**
+     * Writes a possibly null string to the current file.
+     */
+    protected void writeString (String value)
+        throws IOException
+    {
+        _out.writeUTF((value == null) ? "" : value);
+    }
+
+    /**
+     * Closes the current file (if any) and opens the next one.
+     */
+    protected void roll ()
+        throws IOException
+    {
+        close();
+        if (!_directory.isDirectory() && !_directory.mkdirs()) {
+            throw new IOException("Unable to create capture directory " + _directory);
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(_directory, _prefix + "-" + stamp + "-" + (_files++) + ".bin.gz");
+        // count the bytes ourselves, as DataOutputStream.size() stops at Integer.MAX_VALUE
+        _count = new CountingOutputStream(new GZIPOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE), BUFFER_SIZE, true));
+        _out = new DataOutputStream(_count);
+    }
+
+    /**
+     * Closes the current file, if any.
+     */
+    protected void close ()
+    {
+        if (_out != null) {
+            try {
+                _out.close();
+            } catch (IOException ioe) {
+                log.warning("Failed to close chat capture file.", ioe);
+            }
+            _out = null;
+            _count = null;
+        }
+        _dirty = false;
+    }
+
+    /**
+     * Drains the ring buffer in batches, flushing the current file when it goes idle.
+     */
+    protected class Writer extends LoopingThread
+    {
+        public Writer () {
+            super("ChatCapture_Writer");
+            setDaemon(true);
+        }
+
+        @Override
+        public synchronized void shutdown () {
+            // finish off what's in the ring buffer before we actually shutdown
+            _stopping = true;
+            LockSupport.unpark(this);
+        }
+
+        @Override
+        protected void iterate () {
+            int written;
+            try {
+                written = drain(BATCH_SIZE);
+            } catch (IOException ioe) {
+                log.warning("Failed to write chat capture, starting a new file.", ioe);
+                close();
+                return;
+            }
+            if (written > 0) {
+                _dirty = true;
+                return;
+            }
+            if (_stopping) {
+                // a producer may have claimed a slot without having published it yet
+                if (_tail.get() != _head.get()) {
+                    Thread.yield();
+                    return;
+                }
+                super.shutdown();
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (_dirty && now - _lastFlush >= FLUSH_INTERVAL) {
+                if (_out != null) {
+                    try {
+                        _out.flush();
+                    } catch (IOException ioe) {
+                        log.warning("Failed to flush chat capture.", ioe);
+                    }
+                }
+                _dirty = false;
+                _lastFlush = now;
+            }
+
+            // park until a producer publishes a message, or until the current file is due a flush
+            _waiting = true;
+            if (_slots.get((int)(_head.get() & _mask)) == null && !_stopping) {
+                if (_dirty) {
+                    LockSupport.parkNanos(this, (_lastFlush + FLUSH_INTERVAL - now) * 1000000L);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            _waiting = false;
+        }
+
+        @Override
+        protected void handleIterateFailure (Exception e) {
+            log.warning("Uncaught exception in chat capture writer thread.", e);
+        }
+
+        @Override
+        protected void didShutdown () {
+            close();
+        }
+
+        /** Set when we've been asked to shutdown once the ring buffer is empty. */
+        protected volatile boolean _stopping;
+
+        /** Set while we're about to park, so that producers know to unpark us. */
+        protected volatile boolean _waiting;
+
+        /** The time at which we last flushed the current file. */
+        protected long _lastFlush;
+    }
+
+    /** The directory in which we write our files. */
+    protected File _directory;
+
+    /** The prefix of our file names. */
+    protected String _prefix;
+
+    /** The uncompressed size after which we start a new file. */
+    protected long _rollSize;
+
+    /** The ring buffer of messages waiting to be written. */
+    protected AtomicReferenceArray<ChatMessage> _slots;
+
+    /** The mask mapping a sequence number to its slot in {@link #_slots}. */
+    protected int _mask;
+
+    /** The sequence number of the next message to be written, only advanced by the writer. */
+    protected AtomicLong _head = new AtomicLong();
+
+    /** The sequence number of the next slot to be claimed by a producer. */
+    protected AtomicLong _tail = new AtomicLong();
+
+    /** The number of messages dropped because the ring buffer was full. */
+    protected AtomicLong _dropped = new AtomicLong();
+
+    /** The number of messages written out. */
+    protected AtomicLong _written = new AtomicLong();
+
+    /** Our writer thread, while started. */
+    protected volatile Writer _writer;
+
+    /** The file currently being written, only accessed by the writer thread. */
+    protected DataOutputStream _out;
+
+    /** The number of (uncompressed) bytes written to the current file, only accessed by the
+     * writer thread. */
+    protected CountingOutputStream _count;
+
+    /** Whether messages were written to the current file since it was last flushed, only accessed
+     * by the writer thread. */
+    protected boolean _dirty;
+
+    /** The number of files we've started, used to keep file names unique. */
+    protected int _files;
+
+    /** The maximum number of messages written per iteration of the writer. */
+    protected static final int BATCH_SIZE = 256;
+
+    /** The size of our file output buffers. */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The minimum time between flushes of an idle capture file. */
+    protected static final long FLUSH_INTERVAL = 1000L;
+}
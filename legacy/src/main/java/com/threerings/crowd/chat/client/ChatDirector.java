@@ -237,6 +237,17 @@ public class ChatDirector extends BasicDirector
         _mogrifyChat = mogrifyChat;
     }
 
+    /**
+     * Puts this chat director into capture mode. While a capture is set, user and system messages
+     * are handed to it instead of being delivered to our chat displays (including the history
+     * list), so that a long running headless client can log chat without accumulating it in
+     * memory. Pass null to leave capture mode.
+     */
+    public void setCapture (ChatCapture capture)
+    {
+        _capture = capture;
+    }
+
     /**
      * Registers a chat command handler.
      *
@@ -784,6 +795,12 @@ public class ChatDirector extends BasicDirector
      */
     protected void dispatchPreparedMessage (ChatMessage message)
     {
+        ChatCapture capture = _capture;
+        if (capture != null &&
+            (message instanceof UserMessage || message instanceof SystemMessage)) {
+            capture.offer(message);
+            return;
+        }
         _displayMessageOp.setMessage(message);
         _displays.apply(_displayMessageOp);
     }
@@ -1490,6 +1507,9 @@ public class ChatDirector extends BasicDirector
     /** A rolling chat history, or null if {@link #getHistory} is never called. */
     protected HistoryList _hlist;
 
+    /** The capture to which messages are handed in capture mode, or null. */
+    protected volatile ChatCapture _capture;
+
     /** Registered chat command handlers. */
     protected static HashMap<String, CommandHandler> _handlers = Maps.newHashMap();
 
@@ -27,6 +27,8 @@ import com.threerings.crowd.data.PlaceObject;
 import com.threerings.crowd.util.CrowdContext;
 import com.threerings.presents.client.BasicDirector;
 import com.threerings.presents.client.Client;
+import com.threerings.presents.dobj.AttributeChangeListener;
+import com.threerings.presents.dobj.AttributeChangedEvent;
 import com.threerings.presents.dobj.EntryAddedEvent;
 import com.threerings.presents.dobj.EntryRemovedEvent;
 import com.threerings.presents.dobj.EntryUpdatedEvent;
@@ -55,7 +57,7 @@ import com.threerings.util.Name;
  * what's in the cache.
  */
 public class OccupantDirector extends BasicDirector
-    implements LocationObserver, SetListener<OccupantInfo>
+    implements LocationObserver, SetListener<OccupantInfo>, AttributeChangeListener
 {
     /**
      * Constructs a new occupant director with the supplied context.
@@ -92,7 +94,7 @@ public class OccupantDirector extends BasicDirector
     public OccupantInfo getOccupantInfo (int bodyOid)
     {
         // make sure we're somewhere
-        return (_place == null) ? null : _place.occupantInfo.get(Integer.valueOf(bodyOid));
+        return (_place == null) ? null : _index.get(bodyOid);
     }
 
     /**
@@ -102,7 +104,7 @@ public class OccupantDirector extends BasicDirector
      */
     public OccupantInfo getOccupantInfo (Name username)
     {
-        return (_place == null) ? null : _place.getOccupantInfo(username);
+        return (_place == null) ? null : _index.get(username);
     }
 
     @Override
@@ -113,6 +115,7 @@ public class OccupantDirector extends BasicDirector
             _place.removeListener(this);
             _place = null;
         }
+        _index.clear();
     }
 
     // inherit documentation
@@ -135,6 +138,7 @@ public class OccupantDirector extends BasicDirector
         if (_place != null) {
             _place.addListener(this);
         }
+        _index.rebuild(_place);
     }
 
     // inherit documentation
@@ -153,8 +157,9 @@ public class OccupantDirector extends BasicDirector
             return;
         }
 
-        // now let the occupant observers know what's up
+        // index the occupant and let the occupant observers know what's up
         final OccupantInfo info = event.getEntry();
+        _index.occupantEntered(info);
         _observers.apply(new ObserverList.ObserverOp<OccupantObserver>() {
             public boolean apply (OccupantObserver observer) {
                 observer.occupantEntered(info);
@@ -176,6 +181,7 @@ public class OccupantDirector extends BasicDirector
         // now let the occupant observers know what's up
         final OccupantInfo info = event.getEntry();
         final OccupantInfo oinfo = event.getOldEntry();
+        _index.occupantUpdated(oinfo, info);
         _observers.apply(new ObserverList.ObserverOp<OccupantObserver>() {
             public boolean apply (OccupantObserver observer) {
                 observer.occupantUpdated(oinfo, info);
@@ -194,8 +200,9 @@ public class OccupantDirector extends BasicDirector
             return;
         }
 
-        // let the occupant observers know what's up
+        // unindex the occupant and let the occupant observers know what's up
         final OccupantInfo oinfo = event.getOldEntry();
+        _index.occupantLeft(oinfo);
         _observers.apply(new ObserverList.ObserverOp<OccupantObserver>() {
             public boolean apply (OccupantObserver observer) {
                 observer.occupantLeft(oinfo);
@@ -204,9 +211,22 @@ public class OccupantDirector extends BasicDirector
         });
     }
 
+    /**
+     * Reindexes our occupants if the whole occupant info set is replaced.
+     */
+    public void attributeChanged (AttributeChangedEvent event)
+    {
+        if (event.getName().equals(PlaceObject.OCCUPANT_INFO)) {
+            _index.rebuild(_place);
+        }
+    }
+
     /** The occupant observers to keep abreast of occupant antics. */
     protected ObserverList<OccupantObserver> _observers = ObserverList.newSafeInOrder();
 
     /** The user's current location. */
     protected PlaceObject _place;
+
+    /** An index of the occupants of our current location. */
+    protected OccupantIndex _index = new OccupantIndex();
 }
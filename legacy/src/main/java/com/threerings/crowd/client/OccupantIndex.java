@@ -0,0 +1,153 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.crowd.client;
+
+import com.google.common.collect.Maps;
+import com.samskivert.util.HashIntMap;
+import com.threerings.crowd.data.OccupantInfo;
+import com.threerings.crowd.data.PlaceObject;
+import com.threerings.util.Name;
+
+import java.util.HashMap;
+
+/**
+ * A client-side index of the occupants of a place, keyed by body oid and by username. It is kept
+ * up to date incrementally as occupants enter, change and leave so that looking up an occupant
+ * neither searches the place object's {@link PlaceObject#occupantInfo} set nor allocates a key.
+ *
+ * <p> An index is not thread safe and is expected to be updated and read on the client's
+ * distributed object thread.
+ */
+public class OccupantIndex
+{
+    /**
+     * Replaces the contents of this index with the occupants of the supplied place, or clears it
+     * if the place is null.
+     */
+    public void rebuild (PlaceObject place)
+    {
+        clear();
+        if (place != null && place.occupantInfo != null) {
+            for (OccupantInfo info : place.occupantInfo) {
+                occupantEntered(info);
+            }
+        }
+    }
+
+    /**
+     * Removes all occupants from this index.
+     */
+    public void clear ()
+    {
+        _byOid.clear();
+        _byName.clear();
+    }
+
+    /**
+     * Returns the info of the occupant with the specified body oid, or null.
+     */
+    public OccupantInfo get (int bodyOid)
+    {
+        return _byOid.get(bodyOid);
+    }
+
+    /**
+     * Returns the info of the occupant with the specified username, or null.
+     */
+    public OccupantInfo get (Name username)
+    {
+        return _byName.get(username);
+    }
+
+    /**
+     * Returns true if an occupant with the specified body oid is indexed.
+     */
+    public boolean contains (int bodyOid)
+    {
+        return _byOid.containsKey(bodyOid);
+    }
+
+    /**
+     * Returns the number of indexed occupants.
+     */
+    public int size ()
+    {
+        return _byOid.size();
+    }
+
+    /**
+     * Indexes an occupant that entered the place.
+     */
+    public void occupantEntered (OccupantInfo info)
+    {
+        OccupantInfo oinfo = _byOid.put(info.getBodyOid(), info);
+        if (oinfo != null) {
+            unindexName(oinfo);
+        }
+        if (info.username != null) {
+            _byName.put(info.username, info);
+        }
+    }
+
+    /**
+     * Reindexes an occupant whose info was updated, which may have changed their username.
+     */
+    public void occupantUpdated (OccupantInfo oinfo, OccupantInfo info)
+    {
+        if (oinfo != null && oinfo.getBodyOid() != info.getBodyOid()) {
+            occupantLeft(oinfo);
+        }
+        occupantEntered(info);
+    }
+
+    /**
+     * Unindexes an occupant that left the place.
+     */
+    public void occupantLeft (OccupantInfo oinfo)
+    {
+        OccupantInfo info = _byOid.remove(oinfo.getBodyOid());
+        unindexName(oinfo);
+        if (info != null && info != oinfo) {
+            unindexName(info);
+        }
+    }
+
+    /**
+     * Removes the username mapping of the supplied info, if it still maps to that occupant.
+     */
+    protected void unindexName (OccupantInfo info)
+    {
+        if (info.username == null) {
+            return;
+        }
+        OccupantInfo named = _byName.get(info.username);
+        if (named != null && named.getBodyOid() == info.getBodyOid()) {
+            _byName.remove(info.username);
+        }
+    }
+
+    /** Our occupants, keyed by body oid. */
+    protected HashIntMap<OccupantInfo> _byOid = new HashIntMap<OccupantInfo>();
+
+    /** Our occupants, keyed by username. */
+    protected HashMap<Name, OccupantInfo> _byName = Maps.newHashMap();
+}
@@ -0,0 +1,149 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.io;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+
+/**
+ * A JVM-wide dictionary of the classes streamed so far, mapping each class name to its resolved
+ * class and {@link Streamer}. Every stream starts with empty class mappings, so the first
+ * occurrence of a class on each connection would otherwise pay for a {@link Class#forName} and a
+ * lookup in the synchronized {@link Streamer} registry; with the dictionary, only the first
+ * occurrence of the class in the JVM does.
+ *
+ * <p> The dictionary is an immutable map replaced whenever a class is added, so lookups are
+ * lock-free. Classes are added as streams resolve them, or ahead of time with {@link #register}.
+ * Only classes visible from the class loader of the dictionary are shared: classes defined by a
+ * child loader are resolved as usual, and streams with a custom class loader bypass it.
+ */
+public class ClassDictionary
+{
+    /** A pre-resolved class and its streamer. */
+    public static class Entry
+    {
+        /** The resolved class. */
+        public final Class<?> sclass;
+
+        /** The streamer of the class. */
+        public final Streamer streamer;
+
+        protected Entry (Class<?> sclass, Streamer streamer)
+        {
+            this.sclass = sclass;
+            this.streamer = streamer;
+        }
+    }
+
+    /**
+     * Returns the entry of the named class, resolving it through the supplied loader and adding
+     * it to the dictionary if it was not known yet.
+     */
+    public static Entry resolve (String cname, ClassLoader loader)
+        throws IOException, ClassNotFoundException
+    {
+        Entry entry = _byName.get(cname);
+        if (entry == null) {
+            Class<?> sclass = Class.forName(cname, true, loader);
+            entry = add(sclass, Streamer.getStreamer(sclass));
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the streamer of the supplied class, adding the class to the dictionary if it was not
+     * known yet.
+     */
+    public static Streamer getStreamer (Class<?> sclass)
+        throws IOException
+    {
+        Entry entry = _byClass.get(sclass);
+        return (entry != null) ? entry.streamer : add(sclass, Streamer.getStreamer(sclass)).streamer;
+    }
+
+    /**
+     * Resolves and adds the supplied classes to the dictionary ahead of their first use.
+     */
+    public static void register (Iterable<? extends Class<?>> classes)
+        throws IOException
+    {
+        for (Class<?> sclass : classes) {
+            getStreamer(sclass);
+        }
+    }
+
+    /**
+     * Returns the number of classes in the dictionary.
+     */
+    public static int size ()
+    {
+        return _byClass.size();
+    }
+
+    /**
+     * Adds the supplied class to the dictionary, if it can be shared, and returns its entry.
+     */
+    protected static Entry add (Class<?> sclass, Streamer streamer)
+    {
+        Entry entry = new Entry(sclass, streamer);
+        if (!isShared(sclass)) {
+            return entry;
+        }
+        synchronized (ClassDictionary.class) {
+            Entry existing = _byClass.get(sclass);
+            if (existing != null) {
+                return existing;
+            }
+            _byClass = ImmutableMap.<Class<?>, Entry>builder()
+                .putAll(_byClass).put(sclass, entry).build();
+            _byName = ImmutableMap.<String, Entry>builder()
+                .putAll(_byName).put(sclass.getName(), entry).build();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns whether the supplied class is visible from our own class loader, in which case it
+     * is the class that any loader delegating to ours resolves for that name.
+     */
+    protected static boolean isShared (Class<?> sclass)
+    {
+        ClassLoader defining = sclass.getClassLoader();
+        if (defining == null) {
+            return true;
+        }
+        for (ClassLoader loader = ClassDictionary.class.getClassLoader(); loader != null;
+             loader = loader.getParent()) {
+            if (loader == defining) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The dictionary entries, by class name. */
+    protected static volatile ImmutableMap<String, Entry> _byName = ImmutableMap.of();
+
+    /** The dictionary entries, by class. */
+    protected static volatile ImmutableMap<Class<?>, Entry> _byClass = ImmutableMap.of();
+}
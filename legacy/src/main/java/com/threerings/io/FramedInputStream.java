@@ -143,6 +143,25 @@ public class FramedInputStream extends InputStream
         return checkForCompleteFrame();
     }
 
+    /**
+     * Returns a view of the complete frame last returned by {@link
+     * #readFrame}, including its length header, or null if no complete
+     * frame is buffered. The view shares (and exposes through {@link
+     * ByteBuffer#array}) the buffer of this stream, so that it can be
+     * copied in bulk; it must not be modified, is only valid until the
+     * next call to <code>readFrame()</code> and does not affect the
+     * position of this stream.
+     */
+    public ByteBuffer getFrame ()
+    {
+        if (!_haveCompleteFrame) {
+            return null;
+        }
+        ByteBuffer frame = _buffer.duplicate();
+        frame.limit(_length).position(0);
+        return frame;
+    }
+
     /**
      * Decodes and returns the length of the current frame from the buffer
      * if possible. Returns -1 otherwise.
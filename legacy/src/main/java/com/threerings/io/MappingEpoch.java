@@ -0,0 +1,93 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.io;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Identifies the class and intern mapping state of {@link ObjectOutputStream}s. Streams of the
+ * same class that start out empty and commit the same mappings in the same order share the same
+ * epoch, and as the bytes a stream writes for an object only depend on its mappings, they all
+ * write the very same bytes for the same object. This allows an object to be flattened once and
+ * the result sent over every stream sharing that epoch.
+ *
+ * <p> Epochs form a tree rooted at the empty state of each stream class, each child being reached
+ * from its parent by a list of mappings, see {@link ObjectOutputStream#commitMappings}. Children
+ * are only weakly referenced and go away with the streams that were in them.
+ */
+public final class MappingEpoch
+{
+    /**
+     * Returns the epoch of the empty streams of the given class.
+     */
+    public static MappingEpoch root (Class<? extends ObjectOutputStream> streamClass)
+    {
+        MappingEpoch root = _roots.get(streamClass);
+        if (root == null) {
+            root = new MappingEpoch();
+            MappingEpoch prior = _roots.putIfAbsent(streamClass, root);
+            if (prior != null) {
+                root = prior;
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Returns the epoch reached from this one by creating the supplied mappings, in order.
+     *
+     * @param mappings the created mappings: the {@link Class} of each class mapping and the
+     * {@link String} of each intern mapping.
+     */
+    public MappingEpoch child (List<Object> mappings)
+    {
+        if (mappings.isEmpty()) {
+            return this;
+        }
+        MappingEpoch child = _children.getIfPresent(mappings);
+        if (child == null) {
+            child = new MappingEpoch();
+            MappingEpoch prior = _children.asMap().putIfAbsent(ImmutableList.copyOf(mappings), child);
+            if (prior != null) {
+                child = prior;
+            }
+        }
+        return child;
+    }
+
+    protected MappingEpoch ()
+    {
+    }
+
+    /** The epochs reached from this one, by the mappings leading to them. */
+    protected final Cache<List<Object>, MappingEpoch> _children =
+        CacheBuilder.newBuilder().weakValues().build();
+
+    /** The root epoch of each stream class. */
+    protected static final ConcurrentMap<Class<?>, MappingEpoch> _roots = Maps.newConcurrentMap();
+}
@@ -109,7 +109,7 @@ public class ObjectInputStream extends DataInputStream
     {
         // create our intern map if necessary
         if (_internmap == null) {
-            _internmap = Lists.newArrayList();
+            _internmap = Lists.newArrayListWithCapacity(INITIAL_INTERN_MAPPINGS);
             // insert a zeroth element
             _internmap.add(null);
         }
@@ -169,7 +169,7 @@ public class ObjectInputStream extends DataInputStream
     {
         // create our classmap if necessary
         if (_classmap == null) {
-            _classmap = Lists.newArrayList();
+            _classmap = Lists.newArrayListWithCapacity(INITIAL_CLASS_MAPPINGS);
             // insert a zeroth element
             _classmap.add(null);
         }
@@ -236,11 +236,19 @@ public class ObjectInputStream extends DataInputStream
     protected ClassMapping createClassMapping (short code, String cname)
         throws IOException, ClassNotFoundException
     {
-        // resolve the class and streamer
-        ClassLoader loader = (_loader != null) ? _loader :
-            Thread.currentThread().getContextClassLoader();
-        Class<?> sclass = Class.forName(cname, true, loader);
-        Streamer streamer = Streamer.getStreamer(sclass);
+        // resolve the class and streamer, through the shared dictionary unless we have our own
+        // class loader
+        Class<?> sclass;
+        Streamer streamer;
+        if (_loader == null) {
+            ClassDictionary.Entry entry = ClassDictionary.resolve(
+                cname, Thread.currentThread().getContextClassLoader());
+            sclass = entry.sclass;
+            streamer = entry.streamer;
+        } else {
+            sclass = Class.forName(cname, true, _loader);
+            streamer = Streamer.getStreamer(sclass);
+        }
         if (STREAM_DEBUG) {
             log.info(hashCode() + ": New class '" + cname + "'", "code", code);
         }
@@ -345,6 +353,12 @@ public class ObjectInputStream extends DataInputStream
     /** An optional set of class name translations to use when unserializing objects. */
     protected Map<String, String> _translations;
 
+    /** The initial capacity of our class mappings. */
+    protected static final int INITIAL_CLASS_MAPPINGS = 64;
+
+    /** The initial capacity of our intern mappings. */
+    protected static final int INITIAL_INTERN_MAPPINGS = 128;
+
     /** Used to activate verbose debug logging. */
     protected static final boolean STREAM_DEBUG = false;
 }
\ No newline at end of file
@@ -21,11 +21,14 @@
 
 package com.threerings.io;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 
 import static com.threerings.NaryaLog.log;
@@ -56,6 +59,84 @@ public class ObjectOutputStream extends DataOutputStream
             _translations = Maps.newHashMap();
         }
         _translations.put(className, streamedName);
+
+        // translated class names are written differently than by other streams in the same epoch
+        _epoch = null;
+        _created = null;
+    }
+
+    /**
+     * Starts tracking the {@link MappingEpoch} of this stream, which must not have written any
+     * mapping yet. Tracked streams must {@link #commitMappings} after writing each object.
+     */
+    public void trackMappings ()
+    {
+        if (_nextClassCode != 1 || _nextInternCode != 1 || _translations != null) {
+            throw new IllegalStateException("Can only track the mappings of a pristine stream");
+        }
+        _epoch = MappingEpoch.root(getClass());
+        _created = Lists.newArrayList();
+    }
+
+    /**
+     * Returns the mapping epoch of this stream, or null if its mappings are not tracked.
+     */
+    public MappingEpoch getMappingEpoch ()
+    {
+        return _epoch;
+    }
+
+    /**
+     * Moves this stream into the epoch reached by the mappings created since the last commit, and
+     * returns these mappings, which can be {@linkplain #applyMappings applied} to other streams of
+     * the epoch this one was in. Returns an empty list if the mappings are not tracked.
+     */
+    public List<Object> commitMappings ()
+    {
+        if (_epoch == null || _created.isEmpty()) {
+            return ImmutableList.of();
+        }
+        List<Object> created = ImmutableList.copyOf(_created);
+        _created.clear();
+        _epoch = _epoch.child(created);
+        return created;
+    }
+
+    /**
+     * Creates the supplied mappings without writing them, as they were committed by another stream
+     * of this stream's epoch after writing an object whose bytes are being written in place of
+     * this stream's. This stream then moves to the same epoch as the other one.
+     */
+    public void applyMappings (List<Object> mappings)
+        throws IOException
+    {
+        if (_epoch == null) {
+            throw new IllegalStateException("Can only apply mappings to a tracked stream");
+        }
+        if (_classmap == null) {
+            _classmap = Maps.newHashMapWithExpectedSize(
+                ObjectInputStream.INITIAL_CLASS_MAPPINGS);
+        }
+        if (_internmap == null) {
+            _internmap = Maps.newHashMapWithExpectedSize(
+                ObjectInputStream.INITIAL_INTERN_MAPPINGS);
+        }
+        for (Object mapping : mappings) {
+            if (mapping instanceof String) {
+                _internmap.put((String)mapping, createInternMapping(_nextInternCode++));
+                continue;
+            }
+            // mirror writeClassMapping(), collection classes share their base class mapping
+            Class<?> sclass = (Class<?>)mapping;
+            Class<?> collClass = Streamer.getCollectionClass(sclass);
+            if (collClass != null && !collClass.equals(sclass)) {
+                _classmap.put(sclass, _classmap.get(collClass));
+            } else {
+                _classmap.put(sclass,
+                    createClassMapping(_nextClassCode++, sclass, ClassDictionary.getStreamer(sclass)));
+            }
+        }
+        _epoch = _epoch.child(mappings);
     }
 
     /**
@@ -91,7 +172,8 @@ public class ObjectOutputStream extends DataOutputStream
 
         // create our intern map if necessary
         if (_internmap == null) {
-            _internmap = Maps.newHashMap();
+            _internmap = Maps.newHashMapWithExpectedSize(
+                ObjectInputStream.INITIAL_INTERN_MAPPINGS);
         }
 
         // look up the intern mapping record
@@ -104,7 +186,11 @@ public class ObjectOutputStream extends DataOutputStream
                          "value", value);
             }
             code = createInternMapping(_nextInternCode++);
-            _internmap.put(value.intern(), code);
+            value = value.intern();
+            _internmap.put(value, code);
+            if (_created != null) {
+                _created.add(value);
+            }
 
             // make sure we didn't blow past our maximum intern count
             if (_nextInternCode <= 0) {
@@ -163,7 +249,8 @@ public class ObjectOutputStream extends DataOutputStream
     {
         // create our classmap if necessary
         if (_classmap == null) {
-            _classmap = Maps.newHashMap();
+            _classmap = Maps.newHashMapWithExpectedSize(
+                ObjectInputStream.INITIAL_CLASS_MAPPINGS);
         }
 
         // look up the class mapping record
@@ -176,11 +263,14 @@ public class ObjectOutputStream extends DataOutputStream
             if (collClass != null && !collClass.equals(sclass)) {
                 cmap = writeClassMapping(collClass);
                 _classmap.put(sclass, cmap);
+                if (_created != null) {
+                    _created.add(sclass);
+                }
                 return cmap;
             }
 
-            // create a streamer instance and assign a code to this class
-            Streamer streamer = Streamer.getStreamer(sclass);
+            // look up the streamer instance and assign a code to this class
+            Streamer streamer = ClassDictionary.getStreamer(sclass);
             // we specifically do not inline the getStreamer() call into the ClassMapping
             // constructor because we want to be sure not to call _nextClassCode++ if getStreamer()
             // throws an exception
@@ -190,6 +280,9 @@ public class ObjectOutputStream extends DataOutputStream
             }
             cmap = createClassMapping(_nextClassCode++, sclass, streamer);
             _classmap.put(sclass, cmap);
+            if (_created != null) {
+                _created.add(sclass);
+            }
 
             // make sure we didn't blow past our maximum class count
             if (_nextClassCode <= 0) {
@@ -330,4 +423,10 @@ public class ObjectOutputStream extends DataOutputStream
 
     /** An optional set of class name translations to use when serializing objects. */
     protected Map<String, String> _translations;
+
+    /** The mapping epoch of this stream, or null if its mappings are not tracked. */
+    protected MappingEpoch _epoch;
+
+    /** The classes and interns mapped since the last commit, if our mappings are tracked. */
+    protected List<Object> _created;
 }
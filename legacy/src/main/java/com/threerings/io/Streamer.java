@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.samskivert.util.*;
 
 import java.io.IOException;
@@ -39,6 +40,7 @@ import java.security.PrivilegedExceptionAction;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static com.threerings.NaryaLog.log;
 
@@ -161,6 +163,20 @@ public abstract class Streamer
         return stream;
     }
 
+    /**
+     * Returns a snapshot of the classes for which a streamer has been created so far, excluding
+     * the basic types that are always streamable. This can be recorded and used to pre-resolve the
+     * same streamers on a subsequent run (see {@link #getStreamer}).
+     */
+    public synchronized static Set<Class<?>> getStreamedClasses ()
+    {
+        maybeInit();
+
+        Set<Class<?>> classes = Sets.newLinkedHashSet(_streamers.keySet());
+        classes.removeAll(BasicStreamers.BSTREAMERS.keySet());
+        return classes;
+    }
+
     /**
      * Writes the supplied object to the specified stream.
      *
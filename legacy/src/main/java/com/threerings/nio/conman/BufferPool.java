@@ -0,0 +1,129 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.nio.conman;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A pool of fixed size direct buffers, carved out of larger slabs of native memory that are
+ * allocated on demand and never freed, so that native memory use levels off at the pool's high
+ * water mark instead of churning as buffers come and go. The pool is not thread-safe and is meant
+ * to be used by the connection manager thread only.
+ */
+public class BufferPool
+{
+    /**
+     * Creates a buffer pool.
+     *
+     * @param chunkSize the capacity of the buffers handed out by the pool.
+     * @param slabChunks the number of buffers carved out of each slab.
+     * @param maxBytes the maximum number of bytes of native memory the pool will allocate.
+     */
+    public BufferPool (int chunkSize, int slabChunks, long maxBytes)
+    {
+        if (chunkSize <= 0 || slabChunks <= 0) {
+            throw new IllegalArgumentException(
+                "Invalid pool geometry [chunkSize=" + chunkSize + ", slabChunks=" + slabChunks + "]");
+        }
+        _chunkSize = chunkSize;
+        _slabChunks = slabChunks;
+        _maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the capacity of the buffers handed out by this pool.
+     */
+    public int getChunkSize ()
+    {
+        return _chunkSize;
+    }
+
+    /**
+     * Returns the number of bytes of native memory allocated by this pool.
+     */
+    public long getAllocatedBytes ()
+    {
+        return _allocated;
+    }
+
+    /**
+     * Returns the number of allocated bytes that are currently in the pool, waiting to be used.
+     */
+    public long getFreeBytes ()
+    {
+        return (long)_free.size() * _chunkSize;
+    }
+
+    /**
+     * Returns a cleared buffer from the pool, allocating a new slab if the pool is empty, or null
+     * if the pool is empty and may not grow any further.
+     */
+    public ByteBuffer acquire ()
+    {
+        if (_free.isEmpty()) {
+            long slabSize = (long)_chunkSize * _slabChunks;
+            if (_allocated + slabSize > _maxBytes) {
+                return null;
+            }
+            ByteBuffer slab = ByteBuffer.allocateDirect((int)slabSize);
+            for (int ii = 0; ii < _slabChunks; ii++) {
+                slab.limit((ii + 1) * _chunkSize).position(ii * _chunkSize);
+                _free.add(slab.slice());
+            }
+            _allocated += slabSize;
+        }
+        ByteBuffer chunk = _free.poll();
+        chunk.clear();
+        return chunk;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire} to the pool.
+     */
+    public void release (ByteBuffer chunk)
+    {
+        _free.push(chunk);
+    }
+
+    @Override
+    public String toString ()
+    {
+        return "[chunkSize=" + _chunkSize + ", allocated=" + _allocated +
+            ", free=" + getFreeBytes() + "]";
+    }
+
+    /** The capacity of our buffers. */
+    protected final int _chunkSize;
+
+    /** The number of buffers carved out of each slab. */
+    protected final int _slabChunks;
+
+    /** The maximum number of bytes we may allocate. */
+    protected final long _maxBytes;
+
+    /** The number of bytes allocated so far. */
+    protected long _allocated;
+
+    /** The buffers waiting to be used, most recently released first to keep them warm. */
+    protected ArrayDeque<ByteBuffer> _free = new ArrayDeque<ByteBuffer>();
+}
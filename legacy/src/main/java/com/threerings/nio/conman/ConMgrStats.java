@@ -44,6 +44,19 @@ public class ConMgrStats
     /** The overflow queue size. This is a snapshot at the time the stats are requested. */
     public int overQueueSize;
 
+    /**
+     * The number of bytes in the overflow queues. This is a snapshot at the time the stats are
+     * requested. Like the other overflow stats, it is transient so as not to change the streamed
+     * form of these stats.
+     */
+    public transient long overQueueBytes;
+
+    /**
+     * The number of bytes of native memory allocated for the overflow queues. This is a snapshot
+     * at the time the stats are requested.
+     */
+    public transient long overflowPoolBytes;
+
     /** The number of raw network events (sockets reporting ACCEPT or READY). */
     public long eventCount;
 
@@ -56,6 +69,9 @@ public class ConMgrStats
     /** The number of socket closes since the server started up. */
     public int closes;
 
+    /** The number of connections dropped because their overflow queue was full. */
+    public transient int overflowDisconnects;
+
     /** The number of bytes read since the server started up. */
     public long bytesIn;
 
@@ -30,7 +30,7 @@ import com.threerings.nio.SelectorIterable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Map;
 
 import static com.threerings.NaryaLog.log;
@@ -70,6 +70,18 @@ public abstract class ConnectionManager extends LoopingThread
         _onExit = onExit;
     }
 
+    /**
+     * Configures how many bytes may wait in the overflow queue of a connection that is not
+     * reading fast enough. A connection whose queue would exceed that limit is disconnected, as
+     * the messages of a stream can't be dropped without breaking the ones that follow. By default
+     * the overflow queues are unbounded. This must be called before the connection manager is
+     * started.
+     */
+    public void setOverflowLimit (long limit)
+    {
+        _overflowLimit = limit;
+    }
+
     /**
      * Returns our current runtime statistics. <em>Note:</em> don't call this method <em>too</em>
      * frequently as it is synchronized and will contend with the network I/O thread.
@@ -81,12 +93,13 @@ public abstract class ConnectionManager extends LoopingThread
         _stats.handlerCount = _handlers.size();
         _stats.deathQueueSize = _deathq.size();
         _stats.outQueueSize = _outq.size();
-        if (_oflowqs.size() > 0) {
-            _stats.overQueueSize = 0;
-            for (OverflowQueue oq : _oflowqs.values()) {
-                _stats.overQueueSize += oq.size();
-            }
+        _stats.overQueueSize = 0;
+        _stats.overQueueBytes = 0;
+        for (OverflowQueue oq : _oflowqs.values()) {
+            _stats.overQueueSize += oq.size();
+            _stats.overQueueBytes += oq.bytes();
         }
+        _stats.overflowPoolBytes = (_oflowPool == null) ? 0 : _oflowPool.getAllocatedBytes();
         return _stats.clone();
     }
 
@@ -288,7 +301,7 @@ public abstract class ConnectionManager extends LoopingThread
                     // try writing the messages in this overflow queue
                     if (oq.writeOverflowMessages(iterStamp)) {
                         // if they were all written, we can remove it
-                        _oflowqs.remove(oq.conn);
+                        clearOverflowQueue(oq.conn);
                     }
 
                 } catch (IOException ioe) {
@@ -306,11 +319,6 @@ public abstract class ConnectionManager extends LoopingThread
             // because we can't send it until all other messages in their queue have gone out
             OverflowQueue oqueue = _oflowqs.get(conn);
             if (oqueue != null) {
-                int size = oqueue.size();
-                if ((size > 500) && (size % 50 == 0)) {
-                    log.warning("Aiya, big overflow queue for " + conn + "", "size", size,
-                                "bytes", tup.right.length);
-                }
                 oqueue.add(tup.right);
                 continue;
             }
@@ -348,44 +356,42 @@ public abstract class ConnectionManager extends LoopingThread
             return true;
         }
 
-        // expand our output buffer if needed to accomodate this message
-        if (data.length > _outbuf.capacity()) {
-            // increase the buffer size in large increments
-            int ncapacity = Math.max(_outbuf.capacity() << 1, data.length);
-            log.info("Expanding output buffer size", "nsize", ncapacity);
-            _outbuf = ByteBuffer.allocateDirect(ncapacity);
-        }
-
         boolean fully = true;
+        int offset = 0, wrote = 0;
         try {
 //             log.info("Writing " + data.length + " byte message to " + conn + ".");
 
-            // first copy the data into our "direct" output buffer
-            _outbuf.put(data);
-            _outbuf.flip();
-
             // if the connection to which we're writing is not yet ready, the whole message is
             // "leftover", so we pass it to the partial write handler
             SocketChannel sochan = conn.getChannel();
             if (sochan.isConnectionPending()) {
-                pwh.handlePartialWrite(conn, _outbuf);
-                return false;
+                pwh.handlePartialWrite(conn, EMPTY_BUFFER, data, 0);
+                fully = false;
             }
 
-            // then write the data to the socket
-            int wrote = sochan.write(_outbuf);
-            noteWrite(1, wrote);
-
-            // if we didn't write our entire message, deal with the leftover bytes
-            if (_outbuf.remaining() > 0) {
-                fully = false;
-                pwh.handlePartialWrite(conn, _outbuf);
+            // copy the data into our "direct" output buffer and write it to the socket, a buffer
+            // full at a time for messages that are larger than our buffer
+            while (fully && offset < data.length) {
+                int length = Math.min(_outbuf.capacity(), data.length - offset);
+                _outbuf.put(data, offset, length);
+                _outbuf.flip();
+                offset += length;
+
+                wrote += sochan.write(_outbuf);
+
+                // if we didn't write our entire message, deal with the leftover bytes
+                if (_outbuf.remaining() > 0) {
+                    fully = false;
+                    pwh.handlePartialWrite(conn, _outbuf, data, offset);
+                    break;
+                }
+                _outbuf.clear();
             }
 
         } catch (NotYetConnectedException nyce) {
             // this should be caught by isConnectionPending() but awesomely it's not
-            pwh.handlePartialWrite(conn, _outbuf);
-            return false;
+            pwh.handlePartialWrite(conn, _outbuf, data, offset);
+            fully = false;
 
         } catch (IOException ioe) {
             conn.networkFailure(ioe); // instruct the connection to deal with its failure
@@ -394,6 +400,7 @@ public abstract class ConnectionManager extends LoopingThread
             _outbuf.clear();
         }
 
+        noteWrite(1, wrote);
         return fully;
     }
 
@@ -426,7 +433,7 @@ public abstract class ConnectionManager extends LoopingThread
         // when the socket is closed)
         _handlers.remove(conn.selkey);
         _connections.remove(conn.getConnectionId());
-        _oflowqs.remove(conn);
+        clearOverflowQueue(conn);
         synchronized (this) {
             _stats.disconnects++;
         }
@@ -441,12 +448,35 @@ public abstract class ConnectionManager extends LoopingThread
         // when the socket is closed)
         _handlers.remove(conn.selkey);
         _connections.remove(conn.getConnectionId());
-        _oflowqs.remove(conn);
+        clearOverflowQueue(conn);
         synchronized (this) {
             _stats.closes++;
         }
     }
 
+    /**
+     * Removes the overflow queue of the supplied connection, if it has one, discarding any data
+     * it has yet to write.
+     */
+    protected void clearOverflowQueue (Connection conn)
+    {
+        OverflowQueue oqueue = _oflowqs.remove(conn);
+        if (oqueue != null) {
+            oqueue.clear();
+        }
+    }
+
+    /**
+     * Returns the pool from which overflow queues get their buffers, creating it if needed.
+     */
+    protected BufferPool getOverflowPool ()
+    {
+        if (_oflowPool == null) {
+            _oflowPool = new BufferPool(OVERFLOW_CHUNK_SIZE, OVERFLOW_SLAB_CHUNKS, _overflowPoolLimit);
+        }
+        return _oflowPool;
+    }
+
     @Override
     protected void handleIterateFailure (Exception e)
     {
@@ -478,7 +508,11 @@ public abstract class ConnectionManager extends LoopingThread
     /** Used to handle partial writes in {@link ConnectionManager#writeMessage}. */
     protected static interface PartialWriteHandler
     {
-        void handlePartialWrite (Connection conn, ByteBuffer buffer);
+        /**
+         * Handles the unwritten remains of a message, which are the remaining bytes of the
+         * supplied buffer followed by the message data from the supplied offset.
+         */
+        void handlePartialWrite (Connection conn, ByteBuffer buffer, byte[] data, int offset);
     }
 
     /**
@@ -489,27 +523,75 @@ public abstract class ConnectionManager extends LoopingThread
      * to circumstances and recognize the third as quickly as possible so that we can disconnect
      * the client and propagate that information up to the higher levels so that further messages
      * are not queued up for the unresponsive client.
+     *
+     * <p> The queued data is held in buffers from the overflow {@link BufferPool}, and may not
+     * exceed the overflow limit, past which the messages are handled per the overflow policy.
      */
-    protected class OverflowQueue extends ArrayList<byte[]>
-        implements PartialWriteHandler
+    protected class OverflowQueue
     {
         /** The connection for which we're managing overflow. */
         public Connection conn;
 
         /**
-         * Creates a new overflow queue for the supplied connection and with the supplied initial
-         * partial message.
+         * Creates a new, empty, overflow queue for the supplied connection.
          */
-        public OverflowQueue (Connection conn, ByteBuffer message)
+        public OverflowQueue (Connection conn)
         {
             this.conn = conn;
-            // set up our initial _partial buffer
-            handlePartialWrite(conn, message);
+        }
+
+        /**
+         * Returns the number of messages that are not yet entirely written.
+         */
+        public int size ()
+        {
+            return _endCount;
+        }
+
+        /**
+         * Returns the number of bytes that are waiting to be written.
+         */
+        public long bytes ()
+        {
+            return _enqueued - _dequeued;
+        }
+
+        /**
+         * Queues up a message to be written after the ones already in this queue, or disconnects
+         * the client if it does not fit.
+         */
+        public void add (byte[] data)
+        {
+            // an asynchronous close request is honored once all prior messages are written, and
+            // there is no point in writing anything after it
+            if (_closeRequested) {
+                return;
+            }
+            if (data == ASYNC_CLOSE_REQUEST) {
+                _closeRequested = true;
+                return;
+            }
+
+            // sanity check the message size
+            if (data.length > 1024 * 1024) {
+                log.warning("Refusing to write very large message", "conn", conn,
+                            "size", data.length);
+                return;
+            }
+
+            int size = size();
+            if ((size > 500) && (size % 50 == 0)) {
+                log.warning("Aiya, big overflow queue for " + conn + "", "size", size,
+                            "bytes", data.length);
+            }
+            if (bytes() + data.length > _overflowLimit || !append(EMPTY_BUFFER, data, 0)) {
+                overflowed(data.length);
+            }
         }
 
         /**
          * Called each time through the {@link ConnectionManager#iterate} loop, this attempts to
-         * send any remaining partial message and all subsequent messages in the overflow queue.
+         * send all the data in the overflow queue.
          *
          * @return true if all messages in this queue were successfully sent, false if there
          * remains data to be sent on the next loop.
@@ -520,72 +602,213 @@ public abstract class ConnectionManager extends LoopingThread
         public boolean writeOverflowMessages (long iterStamp)
             throws IOException
         {
-            // write any partial message if we have one
-            if (_partial != null) {
-                // if our outgoing channel is gone or closed, then bail immediately
-                SocketChannel sochan = conn.getChannel();
-                if (sochan == null || (!sochan.isConnected() && !sochan.isConnectionPending())) {
-                    throw new IOException("Connection unavailable for overflow write " + sochan);
-                }
-                if (sochan.isConnectionPending()) {
-                    return false; // not ready to write to this connection yet
-                }
+            // if our outgoing channel is gone or closed, then bail immediately
+            SocketChannel sochan = conn.getChannel();
+            if (sochan == null || (!sochan.isConnected() && !sochan.isConnectionPending())) {
+                throw new IOException("Connection unavailable for overflow write " + sochan);
+            }
+            if (sochan.isConnectionPending()) {
+                return false; // not ready to write to this connection yet
+            }
 
-                // write all we can of our partial buffer
-                int wrote = sochan.write(_partial);
-                noteWrite(0, wrote);
+            // write all we can of our buffers in one go
+            int count = _chunks.size();
+            if (count > 0) {
+                if (_gather.length < count) {
+                    _gather = new ByteBuffer[Math.max(_gather.length << 1, count)];
+                }
+                _chunks.toArray(_gather);
+                long wrote = sochan.write(_gather, 0, count);
+                noteWrite(noteDequeued(wrote), (int)wrote);
 
-                if (_partial.remaining() == 0) {
-                    _partial = null;
-                    _partials++;
-                } else {
-//                     log.info("Still going", "conn", conn, "wrote", wrote,
-//                              "remain", _partial.remaining());
+                // return the buffers we emptied to the pool
+                while (!_chunks.isEmpty() && !_chunks.peekFirst().hasRemaining()) {
+                    getOverflowPool().release(_chunks.pollFirst());
+                }
+                if (!_chunks.isEmpty()) {
+//                     log.info("Still going", "conn", conn, "wrote", wrote, "remain", bytes());
                     return false;
                 }
             }
 
-            while (size() > 0) {
-                byte[] data = remove(0);
-                // if any of these messages are partially written, we have to stop and wait for the
-                // next tick
-                _msgs++;
-                if (!writeMessage(conn, data, this)) {
-                    return false;
-                }
+            if (_closeRequested) {
+                closeConnection(conn);
             }
+            return true;
+        }
 
+        /**
+         * Queues up the unwritten remains of a message, see {@link PartialWriteHandler}.
+         *
+         * @return true if the data was queued, false if the overflow pool is exhausted, in which
+         * case nothing was queued.
+         */
+        public boolean append (ByteBuffer buffer, byte[] data, int offset)
+        {
+            int length = buffer.remaining() + data.length - offset;
+            ByteBuffer tail = _chunks.peekLast();
+            int tailLimit = (tail == null) ? 0 : tail.limit(), chunks = _chunks.size();
+            if (!put(buffer) || !put(ByteBuffer.wrap(data, offset, data.length - offset))) {
+                // give back what we took so that the queue is left as it was
+                while (_chunks.size() > chunks) {
+                    getOverflowPool().release(_chunks.pollLast());
+                }
+                if (tail != null) {
+                    tail.limit(tailLimit);
+                }
+                return false;
+            }
+            noteEnqueued(length);
             return true;
         }
 
-        // documentation inherited
-        public void handlePartialWrite (Connection wconn, ByteBuffer buffer)
+        /**
+         * Handles a message that could not be queued by disconnecting the client, which is not
+         * keeping up with its messages. Dropping the message instead would leave the client
+         * unable to decode the ones that follow, should it have defined a class or intern
+         * mapping.
+         */
+        public void overflowed (int length)
         {
-            // set up our _partial buffer
-            _partial = ByteBuffer.allocateDirect(buffer.remaining());
-            _partial.put(buffer);
-            _partial.flip();
+            log.warning("Disconnecting slow connection", "conn", conn, "size", size(),
+                        "bytes", bytes(), "length", length, "limit", _overflowLimit,
+                        "pool", getOverflowPool());
+            synchronized (ConnectionManager.this) {
+                _stats.overflowDisconnects++;
+            }
+            conn.networkFailure(new IOException("Overflow queue limit exceeded"));
+        }
+
+        /**
+         * Returns all of our buffers to the pool, dropping any data that was not yet written.
+         */
+        public void clear ()
+        {
+            while (!_chunks.isEmpty()) {
+                getOverflowPool().release(_chunks.pollFirst());
+            }
+            noteDequeued(bytes());
         }
 
         @Override
         public String toString ()
         {
-            return "[conn=" + conn + ", partials=" + _partials + ", msgs=" + _msgs + "]";
+            return "[conn=" + conn + ", msgs=" + _msgs + ", size=" + size() +
+                ", bytes=" + bytes() + "]";
+        }
+
+        /**
+         * Appends the remaining bytes of the supplied buffer to our buffers.
+         *
+         * @return false if the overflow pool is exhausted, in which case some of the bytes may
+         * have been copied.
+         */
+        protected boolean put (ByteBuffer src)
+        {
+            while (src.hasRemaining()) {
+                ByteBuffer tail = _chunks.peekLast();
+                if (tail == null || tail.limit() == tail.capacity()) {
+                    if ((tail = getOverflowPool().acquire()) == null) {
+                        return false;
+                    }
+                    tail.limit(0);
+                    _chunks.add(tail);
+                }
+
+                // our buffers hold their unwritten data between their position and limit, so we
+                // append past the limit and then restore the position
+                int position = tail.position(), limit = tail.limit();
+                int length = Math.min(src.remaining(), tail.capacity() - limit);
+                tail.limit(limit + length);
+                tail.position(limit);
+                int srcLimit = src.limit();
+                src.limit(src.position() + length);
+                tail.put(src);
+                src.limit(srcLimit);
+                tail.position(position);
+            }
+            return true;
+        }
+
+        /**
+         * Notes that a message of the supplied length was queued.
+         */
+        protected void noteEnqueued (int length)
+        {
+            if (_endCount == _ends.length) {
+                long[] ends = new long[_ends.length << 1];
+                for (int ii = 0; ii < _endCount; ii++) {
+                    ends[ii] = _ends[(_endHead + ii) % _ends.length];
+                }
+                _ends = ends;
+                _endHead = 0;
+            }
+            _enqueued += length;
+            _ends[(_endHead + _endCount++) % _ends.length] = _enqueued;
         }
 
-        /** The remains of a message that was only partially written on its first attempt. */
-        protected ByteBuffer _partial;
+        /**
+         * Notes that the supplied number of bytes were written or dropped.
+         *
+         * @return the number of messages that were completed by those bytes, not counting those
+         * that were already counted as written by {@link ConnectionManager#writeMessage}.
+         */
+        protected int noteDequeued (long length)
+        {
+            int completed = 0;
+            _dequeued += length;
+            while (_endCount > 0 && _ends[_endHead] <= _dequeued) {
+                _endHead = (_endHead + 1) % _ends.length;
+                _endCount--;
+                _msgs++;
+                if (_counted > 0) {
+                    _counted--;
+                } else {
+                    completed++;
+                }
+            }
+            return completed;
+        }
+
+        /** The buffers holding our data, which lies between their position and limit. */
+        protected ArrayDeque<ByteBuffer> _chunks = new ArrayDeque<ByteBuffer>();
+
+        /** Used to write all our buffers at once. */
+        protected ByteBuffer[] _gather = new ByteBuffer[4];
+
+        /** The number of bytes queued and written (or dropped) since we were created. */
+        protected long _enqueued, _dequeued;
+
+        /** The value of {@link #_enqueued} at the end of each unwritten message, in a ring. */
+        protected long[] _ends = new long[16];
+
+        /** The index of the first entry of our ring and its number of entries. */
+        protected int _endHead, _endCount;
+
+        /** Whether an asynchronous close was requested. */
+        protected boolean _closeRequested;
+
+        /** The number of messages at the head of the queue that were already counted as
+         * written, when they were first partially written. */
+        protected int _counted;
 
-        /** A couple of counters. */
-        protected int _msgs, _partials;
+        /** The number of messages written (or dropped on close). */
+        protected int _msgs;
     }
 
     /** Used to create an overflow queue on the first partial write. */
     protected PartialWriteHandler _oflowHandler = new PartialWriteHandler() {
-        public void handlePartialWrite (Connection conn, ByteBuffer msgbuf) {
+        public void handlePartialWrite (Connection conn, ByteBuffer buffer, byte[] data,
+                                        int offset) {
             // if we couldn't write all the data for this message, we'll need to establish an
-            // overflow queue
-            _oflowqs.put(conn, new OverflowQueue(conn, msgbuf));
+            // overflow queue; part of the message may already be out, so we can't drop it
+            OverflowQueue oqueue = new OverflowQueue(conn);
+            _oflowqs.put(conn, oqueue);
+            if (oqueue.append(buffer, data, offset)) {
+                oqueue._counted++; // writeMessage() counted it already
+            } else {
+                oqueue.overflowed(data.length);
+            }
         }
     };
 
@@ -607,6 +830,19 @@ public abstract class ConnectionManager extends LoopingThread
 
     protected Map<Connection, OverflowQueue> _oflowqs = Maps.newHashMap();
 
+    /** The pool from which overflow queues get their buffers, created on first use. */
+    protected BufferPool _oflowPool;
+
+    /** The maximum number of bytes that may wait in a single overflow queue, unbounded unless
+     * configured. */
+    @Inject(optional=true) @Named("presents.net.overflowLimit")
+    protected long _overflowLimit = Long.MAX_VALUE;
+
+    /** The maximum number of bytes of native memory used by all the overflow queues, unbounded
+     * unless configured. */
+    @Inject(optional=true) @Named("presents.net.overflowPoolLimit")
+    protected long _overflowPoolLimit = Long.MAX_VALUE;
+
     /** Our current runtime stats. */
     protected ConMgrStats _stats = new ConMgrStats();
 
@@ -625,9 +861,18 @@ public abstract class ConnectionManager extends LoopingThread
 
     protected final long _idleTime;
 
+    /** The size of the buffers that hold the data of the overflow queues. */
+    protected static final int OVERFLOW_CHUNK_SIZE = 16 * 1024;
+
+    /** The number of overflow buffers allocated at once. */
+    protected static final int OVERFLOW_SLAB_CHUNKS = 64;
+
     /** Used to denote asynchronous close requests. */
     protected static final byte[] ASYNC_CLOSE_REQUEST = new byte[0];
 
+    /** An empty buffer, for partial writes that did not get to our output buffer. */
+    protected static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
     /** Whether or not debug reporting is activated .*/
     protected static final boolean DEBUG_REPORT = false;
 
@@ -127,6 +127,13 @@ public class BlockingCommunicator extends Communicator
         }
     }
 
+    @Override // from Communicator
+    public void connectionStalled (IOException cause)
+    {
+        // a stalled connection is a failed connection that just hasn't noticed yet
+        connectionFailed(cause);
+    }
+
     @Override // from Communicator
     public void gotBootstrap ()
     {
@@ -165,6 +172,12 @@ public class BlockingCommunicator extends Communicator
         return _lastWrite;
     }
 
+    @Override // from Communicator
+    public synchronized long getLastRead ()
+    {
+        return _lastRead;
+    }
+
     @Override // from Communicator
     public boolean getTransmitDatagrams ()
     {
@@ -290,6 +303,12 @@ public class BlockingCommunicator extends Communicator
             // clear these out because they are probably large and in charge
             _oin = null;
             _oout = null;
+
+            // complete the capture of this connection
+            if (_recorder != null) {
+                _recorder.connectionClosed();
+                _recorder = null;
+            }
         }
     }
 
@@ -470,6 +489,15 @@ public class BlockingCommunicator extends Communicator
             throw new InterruptedIOException();
         }
 
+        // make a note of our most recent read time
+        updateReadStamp();
+
+        // capture the raw frame before decoding it, if requested
+        WireRecorder recorder = _recorder;
+        if (recorder != null) {
+            recorder.frameReceived(_fin.getFrame());
+        }
+
         try {
             int size = _fin.available();
             DownstreamMessage msg = (DownstreamMessage)_oin.readObject();
@@ -663,6 +691,12 @@ public class BlockingCommunicator extends Communicator
             _oin = new ClientObjectInputStream(_client, _fin);
             _oin.setClassLoader(_loader);
             _oout = new ObjectOutputStream(_fout);
+
+            // start capturing this connection's traffic, if requested
+            _recorder = _client.getWireRecorder();
+            if (_recorder != null) {
+                _recorder.connectionOpened(_client.getPublicKey() != null);
+            }
         }
 
         // now that we're authenticated, we manage the reading half of things by continuously
@@ -1014,6 +1048,9 @@ public class BlockingCommunicator extends Communicator
     protected FramedInputStream _fin;
     protected ObjectInputStream _oin;
 
+    /** Records our downstream frames, if requested. */
+    protected volatile WireRecorder _recorder;
+
     /** We use these to write our upstream datagrams. */
     protected ByteBufferOutputStream _bout;
     protected UnreliableObjectOutputStream _uout;
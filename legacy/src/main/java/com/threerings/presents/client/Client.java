@@ -32,7 +32,9 @@ import com.threerings.presents.dobj.DObjectManager;
 import com.threerings.presents.net.*;
 import com.threerings.presents.util.SecureUtil;
 
+import java.net.SocketTimeoutException;
 import java.security.PublicKey;
+import java.util.ArrayDeque;
 import java.util.HashSet;
 
 import static com.threerings.presents.Log.log;
@@ -296,6 +298,45 @@ public class Client
         _messageTracker = (tracker == null) ? MessageTracker.NOOP : tracker;
     }
 
+    /**
+     * Installs (or clears) a ping tracker that will be notified of ping round trips and clock
+     * synchronizations for the purpose of statistics tracking.
+     *
+     * @param tracker the new tracker to install, or <code>null</code> to clear the tracker.
+     */
+    public void setPingTracker (PingTracker tracker)
+    {
+        _pingTracker = (tracker == null) ? PingTracker.NOOP : tracker;
+    }
+
+    /**
+     * Installs (or clears) a recorder that will capture the raw downstream traffic of the
+     * connections established after this call.
+     *
+     * @param recorder the recorder to install, or <code>null</code> to stop recording.
+     */
+    public void setWireRecorder (WireRecorder recorder)
+    {
+        _wireRecorder = recorder;
+    }
+
+    /**
+     * Configures the watchdog used to detect connections which stopped delivering messages without
+     * failing (half-open connections). When no message has been received from the server for
+     * <code>silence</code> milliseconds, the client pings it and if the pong does not arrive
+     * within <code>deadline</code> milliseconds, the connection is reported as failed and torn
+     * down. This must be called before {@link #logon}.
+     *
+     * @param silence the time without downstream messages after which the server is pinged, or
+     * <code>0</code> to disable the watchdog.
+     * @param deadline the time the server has to answer that ping.
+     */
+    public void setStaleConnectionTimeouts (long silence, long deadline)
+    {
+        _staleSilence = silence;
+        _staleDeadline = deadline;
+    }
+
     /**
      * Returns the data associated with our authentication response. Users of the Presents system
      * may wish to communicate authentication related information to their client by extending and
@@ -455,6 +496,15 @@ public class Client
         return stamp - _serverDelta;
     }
 
+    /**
+     * Returns the time at which we last received a message from the server, or <code>0</code> if
+     * we have no established connection.
+     */
+    public synchronized long getLastRead ()
+    {
+        return (_comm == null) ? 0L : _comm.getLastRead();
+    }
+
     /**
      * Returns true if we are in active communication (we may not yet be logged on, but we could be
      * trying to log on).
@@ -521,6 +571,20 @@ public class Client
             _tickInterval.schedule(5000L, true);
         }
 
+        // register an interval to detect a connection that went silent, if so configured
+        if (_watchdogInterval == null && _staleSilence > 0) {
+            _watchdogInterval = new Interval(_runQueue) {
+                @Override public void expired () {
+                    checkStaleness();
+                }
+                @Override public String toString () {
+                    return "Client.watchdogInterval";
+                }
+            };
+            long period = Math.min(_staleSilence, _staleDeadline) / 4;
+            _watchdogInterval.schedule(Math.max(period, MIN_WATCHDOG_PERIOD), true);
+        }
+
         return true;
     }
 
@@ -752,6 +816,14 @@ public class Client
         return _messageTracker;
     }
 
+    /**
+     * Returns the recorder capturing downstream traffic, or null.
+     */
+    protected WireRecorder getWireRecorder ()
+    {
+        return _wireRecorder;
+    }
+
     /**
      * Called every five seconds; ensures that we ping the server if we haven't communicated in a
      * long while and periodically resyncs the client and server clock deltas.
@@ -773,15 +845,13 @@ public class Client
                 _dcalc = null;
             } else if (_dcalc.shouldSendPing()) {
                 // otherwise, send another ping
-                PingRequest req = new PingRequest();
-                _comm.postMessage(req);
-                _dcalc.sentPing(req);
+                _dcalc.sentPing(sendPing());
             }
 
         } else if (now - _comm.getLastWrite() > PingRequest.PING_INTERVAL) {
             // if we haven't sent anything over the network in a while, we ping the server to let
             // it know that we're still alive
-            _comm.postMessage(new PingRequest());
+            sendPing();
 
         } else if (now - _lastSync > CLOCK_SYNC_INTERVAL) {
             // resync our clock with the server
@@ -789,6 +859,38 @@ public class Client
         }
     }
 
+    /**
+     * Called periodically when the stale connection watchdog is enabled; pings the server if it
+     * has been silent for too long and tears the connection down if that ping goes unanswered.
+     */
+    protected void checkStaleness ()
+    {
+        // if we're not connected (or still logging on), skip it
+        if (_comm == null || _bstrap == null) {
+            return;
+        }
+
+        long now = RunAnywhere.currentTimeMillis();
+        if (_probeStamp > 0L) {
+            // we're waiting on a pong, if it's late the connection is as good as dead
+            if (now - _probeStamp > _staleDeadline) {
+                long silence = now - _comm.getLastRead();
+                log.warning("Connection went stale, tearing it down", "silence", silence);
+                _probeStamp = 0L;
+                _comm.connectionStalled(new SocketTimeoutException(
+                    "No response from the server in " + silence + "ms."));
+            }
+
+        } else if (now - _comm.getLastRead() > _staleSilence) {
+            // we haven't heard from the server in a while, make sure it's still there; if a ping
+            // is already on its way, its pong will do just as well
+            _probeStamp = now;
+            if (_pendingPings.isEmpty()) {
+                sendPing();
+            }
+        }
+    }
+
     /**
      * Called during initialization to initiate a sequence of ping/pong messages which will be used
      * to determine (with "good enough" accuracy) the difference between the client clock and the
@@ -799,13 +901,24 @@ public class Client
         if (_comm != null) {
             // create a new delta calculator and start the process
             _dcalc = new DeltaCalculator();
-            PingRequest req = new PingRequest();
-            _comm.postMessage(req);
-            _dcalc.sentPing(req);
+            _dcalc.sentPing(sendPing());
             _lastSync = now;
         }
     }
 
+    /**
+     * Sends a ping to the server, noting it so that we can measure its round trip time when the
+     * corresponding pong arrives. The server answers pings in order, so several of them may be
+     * outstanding at once.
+     */
+    protected PingRequest sendPing ()
+    {
+        PingRequest req = new PingRequest();
+        _comm.postMessage(req);
+        _pendingPings.add(req);
+        return req;
+    }
+
     /**
      * Called by the {@link Communicator} if it is experiencing trouble logging on but is still
      * trying fallback strategies.
@@ -890,6 +1003,10 @@ public class Client
             _tickInterval.cancel();
             _tickInterval = null;
         }
+        if (_watchdogInterval != null) {
+            _watchdogInterval.cancel();
+            _watchdogInterval = null;
+        }
 
         // restore the default message throttle
         _outThrottle = new Throttle(DEFAULT_MSGS_PER_SECOND, 1000L);
@@ -907,6 +1024,8 @@ public class Client
 
                 // clear out our references
                 _comm = null;
+                _pendingPings.clear();
+                _probeStamp = 0L;
                 _bstrap = null;
                 _omgr = null;
                 _clobj = null;
@@ -939,12 +1058,29 @@ public class Client
      */
     protected void gotPong (PongResponse pong)
     {
-        // if we're not currently calculating our delta, then we can throw away the pong
-        if (_dcalc != null) {
+        // the server is alive and well, stand down the watchdog
+        _probeStamp = 0L;
+
+        // if we're not currently calculating our delta, then the pong only tells us about latency
+        if (_dcalc != null && !_dcalc.isDone()) {
             // we update the delta after every receipt so as to immediately obtain an estimate of
             // the clock delta and then refine it as more packets come in
-            _dcalc.gotPong(pong);
+            boolean done = _dcalc.gotPong(pong);
             _serverDelta = _dcalc.getTimeDelta();
+            if (done) {
+                _pingTracker.clockSynced(_serverDelta);
+            }
+        }
+
+        // note the round trip time of the ping that instigated this pong, the oldest one still
+        // outstanding, less the time the server spent processing it; a negative time means the
+        // stamps can't be trusted (the ping was never written, say), so we don't record it
+        PingRequest ping = _pendingPings.poll();
+        if (ping != null) {
+            long rtt = pong.getUnpackStamp() - ping.getPackStamp() - pong.getProcessDelay();
+            if (rtt >= 0) {
+                _pingTracker.pongReceived(rtt, _serverDelta);
+            }
         }
     }
 
@@ -1128,15 +1264,41 @@ public class Client
     /** The last time at which we synced our clock with the server. */
     protected long _lastSync;
 
+    /** The pings sent and not yet answered, oldest first, which we hold on to until their pong
+     * arrives. */
+    protected ArrayDeque<PingRequest> _pendingPings = new ArrayDeque<PingRequest>();
+
     /** Our tick interval id. */
     protected Interval _tickInterval;
 
+    /** Our stale connection watchdog interval id. */
+    protected Interval _watchdogInterval;
+
+    /** The time without downstream messages after which the watchdog pings the server, or 0 if
+     * the watchdog is disabled. */
+    protected long _staleSilence;
+
+    /** The time the server has to answer the watchdog's ping. */
+    protected long _staleDeadline;
+
+    /** The time at which the watchdog pinged the server, or 0 if it is not awaiting a pong. */
+    protected long _probeStamp;
+
     /** Our outgoing message throttle. */
     protected Throttle _outThrottle = new Throttle(DEFAULT_MSGS_PER_SECOND, 1000L);
 
     /** The tracker to notify on message transmission or receipt. */
     protected volatile MessageTracker _messageTracker = MessageTracker.NOOP;
 
+    /** The tracker to notify on ping round trips and clock synchronizations. */
+    protected volatile PingTracker _pingTracker = PingTracker.NOOP;
+
+    /** The recorder capturing downstream traffic, or null. */
+    protected volatile WireRecorder _wireRecorder;
+
     /** How often we recompute our time offset from the server. */
     protected static final long CLOCK_SYNC_INTERVAL = 600 * 1000L;
+
+    /** The shortest period at which the watchdog checks the connection. */
+    protected static final long MIN_WATCHDOG_PERIOD = 250L;
 }
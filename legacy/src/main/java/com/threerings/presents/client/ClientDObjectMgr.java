@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static com.threerings.presents.Log.log;
 
@@ -92,6 +93,17 @@ public class ClientDObjectMgr
         }
     }
 
+    /**
+     * Creates a batch through which several object subscriptions can be requested at once. The
+     * batch can be passed anywhere a {@link DObjectManager} is expected (to a {@link
+     * com.threerings.presents.util.SafeSubscriber} for instance) to collect subscriptions, which
+     * are then issued together by {@link SubscriptionBatch#commit}.
+     */
+    public SubscriptionBatch startBatch ()
+    {
+        return new SubscriptionBatch();
+    }
+
     // inherit documentation from the interface
     public <T extends DObject> void unsubscribeFromObject (int oid, Subscriber<T> target)
     {
@@ -191,6 +203,9 @@ public class ClientDObjectMgr
             UpdateThrottleMessage upmsg = (UpdateThrottleMessage)obj;
             _client.setOutgoingMessageThrottle(upmsg.messagesPerSec);
 
+        } else if (obj instanceof SubscriptionBatch) {
+            doSubscribe((SubscriptionBatch)obj);
+
         } else if (obj instanceof ObjectAction<?>) {
             ObjectAction<?> act = (ObjectAction<?>)obj;
             if (act.subscribe) {
@@ -215,8 +230,12 @@ public class ClientDObjectMgr
     {
         // tell any pending object subscribers that they're not getting their bits
         for (PendingRequest<?> req : _penders.values()) {
+            ObjectAccessException cause = new ObjectAccessException("Client connection closed");
             for (Subscriber<?> sub : req.targets) {
-                sub.requestFailed(req.oid, new ObjectAccessException("Client connection closed"));
+                sub.requestFailed(req.oid, cause);
+            }
+            for (SubscriptionBatch batch : req.batches) {
+                batch.objectFailed(cause);
             }
         }
         _penders.clear();
@@ -343,6 +362,9 @@ public class ClientDObjectMgr
             // and let them know that the object is in
             target.objectAvailable(obj);
         }
+        for (SubscriptionBatch batch : req.batches) {
+            batch.objectResolved();
+        }
     }
 
     /**
@@ -358,8 +380,12 @@ public class ClientDObjectMgr
             return;
         }
 
+        ObjectAccessException cause = new ObjectAccessException(message);
         for (int ii = 0; ii < req.targets.size(); ii++) {
-            req.targets.get(ii).requestFailed(oid, new ObjectAccessException(message));
+            req.targets.get(ii).requestFailed(oid, cause);
+        }
+        for (SubscriptionBatch batch : req.batches) {
+            batch.objectFailed(cause);
         }
     }
 
@@ -371,6 +397,55 @@ public class ClientDObjectMgr
     {
         // com.threerings.stats.Log.info("doSubscribe: " + oid + ": " + target);
 
+        // issue a request to get things rolling if need be
+        if (addSubscription(action, null)) {
+            _comm.postMessage(new SubscribeRequest(action.oid));
+        }
+    }
+
+    /**
+     * Processes a batch of subscriptions, sending the subscribe requests for all of the objects
+     * that are neither proxied nor already being requested back-to-back in a single compound
+     * message. Like {@link #doSubscribe(ObjectAction)}, this is only invoked via the invoker.
+     */
+    protected void doSubscribe (SubscriptionBatch batch)
+    {
+        CompoundUpstreamMessage requests = new CompoundUpstreamMessage();
+        batch._remaining = batch._subs.size();
+        if (batch._remaining == 0) {
+            batch._future.complete(null);
+            return;
+        }
+        for (ObjectAction<?> action : batch._subs) {
+            if (addSubscription(action, batch)) {
+                requests.msgs.add(new SubscribeRequest(action.oid));
+            }
+        }
+
+        switch (requests.msgs.size()) {
+        case 0:
+            break;
+        case 1:
+            _comm.postMessage(requests.msgs.get(0));
+            break;
+        default:
+            _comm.postMessage(requests);
+            break;
+        }
+    }
+
+    /**
+     * Adds the subscriber of the supplied action to its object, calling it back straight away if
+     * the object is proxied, or to the pending request for its object otherwise.
+     *
+     * @param batch the batch to notify once the object is resolved, or null.
+     *
+     * @return true if a new pending request was created, in which case the caller must send a
+     * subscribe request for the object.
+     */
+    protected <T extends DObject> boolean addSubscription (
+        ObjectAction<T> action, SubscriptionBatch batch)
+    {
         int oid = action.oid;
         Subscriber<T> target = action.target;
 
@@ -384,7 +459,10 @@ public class ClientDObjectMgr
             // add the subscriber and call them back straight away
             obj.addSubscriber(target);
             target.objectAvailable(obj);
-            return;
+            if (batch != null) {
+                batch.objectResolved();
+            }
+            return false;
         }
 
         // see if we've already got an outstanding request for this object
@@ -392,17 +470,17 @@ public class ClientDObjectMgr
         if (req != null) {
             // add this subscriber to the list to be notified when the request is satisfied
             req.addTarget(target);
-            return;
+            req.addBatch(batch);
+            return false;
         }
 
         // otherwise we need to create a new request
         req = new PendingRequest<T>(oid);
         req.addTarget(target);
+        req.addBatch(batch);
         _penders.put(oid, req);
         // com.threerings.stats.Log.info("Registering pending request [oid=" + oid + "].");
-
-        // and issue a request to get things rolling
-        _comm.postMessage(new SubscribeRequest(oid));
+        return true;
     }
 
     /**
@@ -480,11 +558,103 @@ public class ClientDObjectMgr
         }
     }
 
+    /**
+     * Collects object subscriptions to be issued together, see {@link #startBatch}. Everything
+     * but {@link #subscribeToObject} is passed straight through to the manager.
+     */
+    public class SubscriptionBatch
+        implements DObjectManager
+    {
+        /**
+         * Issues all of the subscriptions collected by this batch. The subscribers are notified
+         * as usual as their objects become available, the returned future is completed once all
+         * of them are, or exceptionally with the first failure.
+         */
+        public CompletableFuture<Void> commit ()
+        {
+            if (_client.getRunQueue().isRunning()) {
+                _actions.append(this);
+                _client.getRunQueue().postRunnable(ClientDObjectMgr.this);
+            } else {
+                log.info("Dropping subscription batch as RunQueue is stopped",
+                         "size", _subs.size());
+                _future.completeExceptionally(
+                    new ObjectAccessException("Client run queue is not running"));
+            }
+            return _future;
+        }
+
+        // from interface DObjectManager
+        public boolean isManager (DObject object)
+        {
+            return ClientDObjectMgr.this.isManager(object);
+        }
+
+        // from interface DObjectManager
+        public <T extends DObject> void subscribeToObject (int oid, Subscriber<T> target)
+        {
+            if (oid <= 0) {
+                ObjectAccessException cause = new ObjectAccessException("Invalid oid " + oid + ".");
+                target.requestFailed(oid, cause);
+                _future.completeExceptionally(cause);
+            } else {
+                _subs.add(new ObjectAction<T>(oid, target, true));
+            }
+        }
+
+        // from interface DObjectManager
+        public <T extends DObject> void unsubscribeFromObject (int oid, Subscriber<T> target)
+        {
+            ClientDObjectMgr.this.unsubscribeFromObject(oid, target);
+        }
+
+        // from interface DObjectManager
+        public void postEvent (DEvent event)
+        {
+            ClientDObjectMgr.this.postEvent(event);
+        }
+
+        // from interface DObjectManager
+        public void removedLastSubscriber (DObject obj, boolean deathWish)
+        {
+            ClientDObjectMgr.this.removedLastSubscriber(obj, deathWish);
+        }
+
+        /**
+         * Called on the invoker when one of our objects becomes available.
+         */
+        protected void objectResolved ()
+        {
+            if (--_remaining == 0) {
+                _future.complete(null);
+            }
+        }
+
+        /**
+         * Called on the invoker when one of our objects could not be obtained.
+         */
+        protected void objectFailed (ObjectAccessException cause)
+        {
+            _remaining--;
+            _future.completeExceptionally(cause);
+        }
+
+        /** The subscriptions collected by this batch. */
+        protected List<ObjectAction<?>> _subs = Lists.newArrayList();
+
+        /** The number of our objects that have yet to be resolved, once committed. */
+        protected int _remaining;
+
+        /** Completed once all of our objects are available. */
+        protected CompletableFuture<Void> _future = new CompletableFuture<Void>();
+    }
+
     /** Represents a pending subscription request. */
     protected static final class PendingRequest<T extends DObject>
     {
         public int oid;
         public ArrayList<Subscriber<T>> targets = Lists.newArrayList();
+        public ArrayList<SubscriptionBatch> batches = Lists.newArrayListWithCapacity(0);
 
         public PendingRequest (int oid)
         {
@@ -495,6 +665,13 @@ public class ClientDObjectMgr
         {
             targets.add(target);
         }
+
+        public void addBatch (SubscriptionBatch batch)
+        {
+            if (batch != null) {
+                batches.add(batch);
+            }
+        }
     }
 
     /** Used to manage pending object flushes. */
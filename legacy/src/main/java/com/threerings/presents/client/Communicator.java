@@ -27,6 +27,8 @@ import com.threerings.presents.net.AuthResponseData;
 import com.threerings.presents.net.Message;
 import com.threerings.presents.net.UpstreamMessage;
 
+import java.io.IOException;
+
 import static com.threerings.presents.Log.log;
 
 /**
@@ -53,6 +55,16 @@ public abstract class Communicator
      */
     public abstract void logoff ();
 
+    /**
+     * Tears down our connection to the server because it stopped responding without failing
+     * outright. By default this is handled as a logoff; derived classes should report the supplied
+     * cause to the client observers as a connection failure.
+     */
+    public void connectionStalled (IOException cause)
+    {
+        logoff();
+    }
+
     /**
      * Notifies the communicator that the client has received its bootstrap data.
      */
@@ -77,6 +89,14 @@ public abstract class Communicator
         return _lastWrite;
     }
 
+    /**
+     * Returns the time at which we last received a message from the server.
+     */
+    public long getLastRead ()
+    {
+        return _lastRead;
+    }
+
     /**
      * Checks whether we should transmit datagrams.
      */
@@ -93,6 +113,14 @@ public abstract class Communicator
         _lastWrite = RunAnywhere.currentTimeMillis();
     }
 
+    /**
+     * Makes a note of the time at which the server last communicated with us.
+     */
+    protected synchronized void updateReadStamp ()
+    {
+        _lastRead = RunAnywhere.currentTimeMillis();
+    }
+
     /**
      * Subclasses must call this method when they receive the authentication response.
      */
@@ -152,4 +180,5 @@ public abstract class Communicator
     protected Client _client;
     protected ClientDObjectMgr _omgr;
     protected long _lastWrite;
+    protected long _lastRead;
 }
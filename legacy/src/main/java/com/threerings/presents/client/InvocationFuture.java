@@ -0,0 +1,119 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import com.threerings.presents.data.InvocationCodes;
+import com.threerings.presents.data.InvocationMarshaller.ListenerMarshaller;
+import com.threerings.presents.server.InvocationException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future result of an invocation request sent through {@link InvocationDirector#requestResult}
+ * or {@link InvocationDirector#requestConfirm}. It stands in as the listener of the request, so no
+ * listener has to be written by hand, and any number of requests can be in flight without
+ * blocking a thread.
+ *
+ * <p> The future completes on the client run queue, with the result of the request, with an
+ * {@link InvocationException} carrying the failure cause reported by the server, or with a
+ * {@link TimeoutException} if no response arrived within the timeout of the request. Cancelling
+ * the future unregisters its listener, any late response being ignored.
+ */
+public class InvocationFuture<T> extends CompletableFuture<T>
+    implements InvocationService.ResultListener, InvocationService.ConfirmListener
+{
+    /**
+     * Creates a future expecting a result of the supplied type, which is null for requests only
+     * confirming their processing.
+     */
+    public InvocationFuture (InvocationDirector invdir, Class<T> resultType)
+    {
+        _invdir = invdir;
+        _resultType = resultType;
+    }
+
+    /**
+     * Returns the marshaller via which the response to the request is received, or null if the
+     * request was not sent.
+     */
+    public ListenerMarshaller getMarshaller ()
+    {
+        return _marshaller;
+    }
+
+    /**
+     * Configures the marshaller via which the response to the request is received.
+     */
+    public void setMarshaller (ListenerMarshaller marshaller)
+    {
+        _marshaller = marshaller;
+        marshaller.listener = this;
+    }
+
+    // from interface ConfirmListener
+    public void requestProcessed ()
+    {
+        complete(null);
+    }
+
+    // from interface ResultListener
+    public void requestProcessed (Object result)
+    {
+        if (result != null && _resultType != null && !_resultType.isInstance(result)) {
+            completeExceptionally(new ClassCastException(
+                "Expected " + _resultType.getName() + " result, got " + result.getClass().getName()));
+        } else {
+            @SuppressWarnings("unchecked") T value = (T)result;
+            complete(value);
+        }
+    }
+
+    // from interface InvocationListener
+    public void requestFailed (String cause)
+    {
+        if (InvocationCodes.REQUEST_TIMED_OUT.equals(cause)) {
+            completeExceptionally(new TimeoutException("No response to " + _marshaller));
+        } else {
+            completeExceptionally(new InvocationException(cause));
+        }
+    }
+
+    @Override
+    public boolean cancel (boolean mayInterruptIfRunning)
+    {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && _marshaller != null) {
+            _invdir.cancelRequest(_marshaller);
+        }
+        return cancelled;
+    }
+
+    /** The director via which the request was sent. */
+    protected final InvocationDirector _invdir;
+
+    /** The expected type of the result, or null. */
+    protected final Class<T> _resultType;
+
+    /** The marshaller via which the response is received. */
+    protected volatile ListenerMarshaller _marshaller;
+}
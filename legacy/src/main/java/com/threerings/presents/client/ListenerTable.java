@@ -0,0 +1,148 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import com.threerings.presents.data.InvocationMarshaller.ListenerMarshaller;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free table of the listener marshallers awaiting an invocation response, keyed by their
+ * request id. Request ids are shorts, so the table addresses the whole id space directly, split
+ * in pages which are only allocated once an id falling in them is used. As ids are handed out
+ * sequentially, only a couple of pages are ever live, and no key is boxed along the way.
+ */
+public class ListenerTable
+{
+    /**
+     * Returns the listener registered for the supplied request id, or null.
+     */
+    public ListenerMarshaller get (int requestId)
+    {
+        AtomicReferenceArray<ListenerMarshaller> page = _pages.get(pageOf(requestId));
+        return (page == null) ? null : page.get(slotOf(requestId));
+    }
+
+    /**
+     * Registers a listener under the supplied request id, replacing any previous mapping.
+     *
+     * @return the listener previously registered under that id, or null.
+     */
+    public ListenerMarshaller put (int requestId, ListenerMarshaller listener)
+    {
+        ListenerMarshaller prev = getPage(pageOf(requestId)).getAndSet(slotOf(requestId), listener);
+        if (prev == null) {
+            _size.incrementAndGet();
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the listener registered for the supplied request id.
+     *
+     * @return the removed listener, or null if none was registered.
+     */
+    public ListenerMarshaller remove (int requestId)
+    {
+        AtomicReferenceArray<ListenerMarshaller> page = _pages.get(pageOf(requestId));
+        if (page == null) {
+            return null;
+        }
+        ListenerMarshaller prev = page.getAndSet(slotOf(requestId), null);
+        if (prev != null) {
+            _size.decrementAndGet();
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the supplied listener if it is still the one registered for its request id.
+     *
+     * @return true if the listener was removed.
+     */
+    public boolean remove (int requestId, ListenerMarshaller listener)
+    {
+        AtomicReferenceArray<ListenerMarshaller> page = _pages.get(pageOf(requestId));
+        if (page == null || !page.compareAndSet(slotOf(requestId), listener, null)) {
+            return false;
+        }
+        _size.decrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the number of registered listeners.
+     */
+    public int size ()
+    {
+        return _size.get();
+    }
+
+    /**
+     * Removes all registered listeners.
+     */
+    public void clear ()
+    {
+        for (int ii = 0; ii < PAGE_COUNT; ii++) {
+            _pages.set(ii, null);
+        }
+        _size.set(0);
+    }
+
+    /**
+     * Returns the page for the supplied index, allocating it if needed.
+     */
+    protected AtomicReferenceArray<ListenerMarshaller> getPage (int index)
+    {
+        AtomicReferenceArray<ListenerMarshaller> page = _pages.get(index);
+        if (page == null) {
+            page = new AtomicReferenceArray<ListenerMarshaller>(PAGE_SIZE);
+            if (!_pages.compareAndSet(index, null, page)) {
+                page = _pages.get(index);
+            }
+        }
+        return page;
+    }
+
+    protected static int pageOf (int requestId)
+    {
+        return (requestId & 0xFFFF) >>> PAGE_BITS;
+    }
+
+    protected static int slotOf (int requestId)
+    {
+        return requestId & (PAGE_SIZE - 1);
+    }
+
+    /** The pages of the table, allocated on demand. */
+    protected final AtomicReferenceArray<AtomicReferenceArray<ListenerMarshaller>> _pages =
+        new AtomicReferenceArray<AtomicReferenceArray<ListenerMarshaller>>(PAGE_COUNT);
+
+    /** The number of registered listeners. */
+    protected final AtomicInteger _size = new AtomicInteger();
+
+    /** The number of request ids covered by a single page. */
+    protected static final int PAGE_BITS = 8;
+    protected static final int PAGE_SIZE = 1 << PAGE_BITS;
+    protected static final int PAGE_COUNT = (1 << 16) >>> PAGE_BITS;
+}
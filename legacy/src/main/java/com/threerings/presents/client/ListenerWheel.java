@@ -0,0 +1,148 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import com.threerings.presents.data.InvocationMarshaller.ListenerMarshaller;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A hashed timer wheel expiring the listener marshallers which did not receive an invocation
+ * response in time. Listeners can be scheduled from any thread, each slot of the wheel being a
+ * lock-free stack, while the wheel is advanced by a single thread calling {@link #expire}.
+ *
+ * <p> Listeners which receive their response are not removed from the wheel: when their deadline
+ * comes, they are only expired if they are still registered in the {@link ListenerTable}.
+ */
+public abstract class ListenerWheel
+{
+    /**
+     * Creates a wheel expiring the listeners registered in the supplied table.
+     *
+     * @param tick the duration covered by each slot of the wheel, in milliseconds.
+     * @param slots the number of slots of the wheel, which must be a power of two.
+     */
+    public ListenerWheel (ListenerTable table, long tick, int slots)
+    {
+        if (tick <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Invalid wheel [tick=" + tick +
+                                               ", slots=" + slots + "]");
+        }
+        _table = table;
+        _tick = tick;
+        _slots = new AtomicReferenceArray<Node>(slots);
+        _mask = slots - 1;
+    }
+
+    /**
+     * Schedules the expiry of the supplied listener at the specified deadline.
+     */
+    public void schedule (ListenerMarshaller listener, long deadline)
+    {
+        push(new Node(listener, deadline));
+    }
+
+    /**
+     * Advances the wheel up to the supplied time, expiring the listeners which reached their
+     * deadline without being responded to. This must only be called by a single thread.
+     */
+    public void expire (long now)
+    {
+        // only process the ticks which are over, so that no listener is expired early
+        long last = now / _tick - 1;
+        if (_lastTick == 0L || last - _lastTick > _mask) {
+            _lastTick = last - _mask - 1;
+        }
+        while (_lastTick < last) {
+            _lastTick++;
+            Node node = _slots.getAndSet((int)(_lastTick & _mask), null);
+            while (node != null) {
+                Node next = node.next;
+                if (node.deadline / _tick > _lastTick) {
+                    // not due yet, it will come up on a later turn of the wheel
+                    push(node);
+                } else if (_table.remove(node.listener.requestId, node.listener)) {
+                    expired(node.listener);
+                }
+                node = next;
+            }
+        }
+    }
+
+    /**
+     * Removes all scheduled listeners.
+     */
+    public void clear ()
+    {
+        for (int ii = 0; ii <= _mask; ii++) {
+            _slots.set(ii, null);
+        }
+    }
+
+    /**
+     * Called when a listener reached its deadline without being responded to. It has already
+     * been removed from the listener table.
+     */
+    protected abstract void expired (ListenerMarshaller listener);
+
+    /**
+     * Pushes the supplied node onto the stack of the slot its deadline falls in.
+     */
+    protected void push (Node node)
+    {
+        int index = (int)((node.deadline / _tick) & _mask);
+        Node head;
+        do {
+            head = _slots.get(index);
+            node.next = head;
+        } while (!_slots.compareAndSet(index, head, node));
+    }
+
+    /** A scheduled listener. */
+    protected static class Node
+    {
+        public final ListenerMarshaller listener;
+        public final long deadline;
+        public Node next;
+
+        public Node (ListenerMarshaller listener, long deadline)
+        {
+            this.listener = listener;
+            this.deadline = deadline;
+        }
+    }
+
+    /** The table from which the expired listeners are removed. */
+    protected final ListenerTable _table;
+
+    /** The duration covered by each slot, in milliseconds. */
+    protected final long _tick;
+
+    /** The slots of the wheel, each the head of a stack of scheduled listeners. */
+    protected final AtomicReferenceArray<Node> _slots;
+
+    /** Used to map ticks to slots. */
+    protected final int _mask;
+
+    /** The last tick processed by {@link #expire}. */
+    protected long _lastTick;
+}
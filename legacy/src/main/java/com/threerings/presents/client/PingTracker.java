@@ -0,0 +1,54 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+/**
+ * Used to listen to the ping/pong exchanges of a client for the purpose of latency and clock
+ * tracking. Methods are called on the client's run queue, but implementations that are read from
+ * other threads must be thread-safe.
+ */
+public interface PingTracker
+{
+    /**
+     * An implementation of the interface that does nothing.
+     */
+    public static final PingTracker NOOP = new PingTracker() {
+        public void pongReceived (long rtt, long delta) {
+        }
+        public void clockSynced (long delta) {
+        }
+    };
+
+    /**
+     * Notes that a pong was received in response to one of our pings.
+     *
+     * @param rtt the round trip time of the ping in milliseconds, less the time the server spent
+     * processing it.
+     * @param delta the current client/server time delta estimate.
+     */
+    public void pongReceived (long rtt, long delta);
+
+    /**
+     * Notes that a clock synchronization completed and settled on a new client/server time delta.
+     */
+    public void clockSynced (long delta);
+}
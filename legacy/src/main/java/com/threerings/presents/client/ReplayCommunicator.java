@@ -0,0 +1,157 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import com.samskivert.util.BasicRunQueue;
+import com.threerings.presents.net.UsernamePasswordCreds;
+import com.threerings.presents.util.SecureUtil;
+import com.threerings.util.Name;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A communicator that replays a wire capture instead of talking to a server, driving the captured
+ * traffic through the regular decoding and dispatching pipeline so that it can be measured
+ * offline and reproducibly. Upstream messages are encoded as usual, then discarded.
+ *
+ * <p> The replaying client must be configured like the recorded one: with a public key when the
+ * capture {@linkplain WireReplay#isSecure is secure} (any key will do, as the handshake is not
+ * verified) and without datagram ports, as datagrams are not captured.
+ */
+public class ReplayCommunicator extends BlockingCommunicator
+{
+    /**
+     * Replays the supplied capture through a new client configured to match it, blocking until
+     * the client processed all of it. The messages decoded from the capture are reported to the
+     * supplied tracker, on the thread reading the capture.
+     *
+     * @return the time spent replaying, in nanoseconds, from the logon of the client until it
+     * cleared.
+     *
+     * @throws IOException if the client failed to replay the capture.
+     * @throws InterruptedException if interrupted while waiting for the replay to complete.
+     */
+    public static long replay (final WireReplay replay, MessageTracker tracker)
+        throws IOException, InterruptedException
+    {
+        BasicRunQueue runQueue = new BasicRunQueue();
+        Client client = new Client(new UsernamePasswordCreds(new Name("replay"), "replay"),
+                                   runQueue) {
+            @Override protected Communicator createCommunicator () {
+                return new ReplayCommunicator(this, replay);
+            }
+        };
+        if (replay.isSecure()) {
+            // the handshake is not verified on replay, any key will do
+            client.setPublicKey(SecureUtil.genRSAKeyPair(KEY_SIZE).getPublic());
+        }
+        client.setMessageTracker(tracker);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final Exception[] failure = new Exception[1];
+        client.addClientObserver(new ClientAdapter() {
+            @Override public void clientFailedToLogon (Client client, Exception cause) {
+                failure[0] = cause;
+                done.countDown();
+            }
+            @Override public void clientDidClear (Client client) {
+                done.countDown();
+            }
+        });
+
+        runQueue.start();
+        long start = System.nanoTime();
+        try {
+            client.logon();
+            done.await();
+        } finally {
+            runQueue.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (failure[0] != null) {
+            throw new IOException("Could not replay the capture", failure[0]);
+        }
+        return elapsed;
+    }
+
+    /**
+     * Creates a communicator that will replay the supplied capture when logging on.
+     */
+    public ReplayCommunicator (Client client, WireReplay replay)
+    {
+        super(client);
+        _replay = replay;
+    }
+
+    @Override // from BlockingCommunicator
+    public void gotBootstrap ()
+    {
+        // datagrams are not captured, so there's nothing to receive them from
+    }
+
+    @Override // from BlockingCommunicator
+    protected void openChannel (InetAddress host)
+        throws IOException
+    {
+        // an unconnected channel stands in for the socket, which is neither read nor written
+        synchronized (this) {
+            _channel = SocketChannel.open();
+        }
+    }
+
+    @Override // from BlockingCommunicator
+    protected boolean readFrame ()
+        throws IOException
+    {
+        return _fin.readFrame(_replay);
+    }
+
+    @Override // from BlockingCommunicator
+    protected int writeMessage (ByteBuffer buf)
+        throws IOException
+    {
+        int size = buf.remaining();
+        buf.position(buf.limit());
+        return size;
+    }
+
+    @Override // from BlockingCommunicator
+    protected void closeChannel ()
+    {
+        super.closeChannel();
+        try {
+            _replay.close();
+        } catch (IOException ioe) {
+            // nothing to lose, we were done reading
+        }
+    }
+
+    /** The capture being replayed. */
+    protected WireReplay _replay;
+
+    /** The size of the key set on the replaying client of a secure capture. */
+    protected static final int KEY_SIZE = 1024;
+}
@@ -0,0 +1,201 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static com.threerings.presents.Log.log;
+
+/**
+ * Records the raw framed downstream traffic of a client, as read from the network, so that it can
+ * later be replayed offline through a {@link ReplayCommunicator}. Each connection is recorded to
+ * its own capture file, as decoding depends on the state the object stream builds up from the
+ * very first frame of a connection.
+ *
+ * <p> A capture file is written with a {@link DataOutputStream}, starting with the header:
+ *
+ * <pre>
+ * int MAGIC, short VERSION, long startTime, boolean secure
+ * </pre>
+ *
+ * where secure indicates whether the connection used a secure authentication, followed by one
+ * record per frame:
+ *
+ * <pre>
+ * long nanosSinceStart, int length, byte[length - 4] payload
+ * </pre>
+ *
+ * where length is the frame length header, which counts itself.
+ *
+ * <p> Frames are written synchronously by the reading thread through a buffer, this is a
+ * diagnostic tool and not meant to be left on in production.
+ *
+ * @see Client#setWireRecorder
+ */
+public class WireRecorder
+{
+    /** The magic number starting every capture file. */
+    public static final int MAGIC = 0x57495245; // "WIRE"
+
+    /** The version of the capture format. */
+    public static final short VERSION = 1;
+
+    /** The extension of capture files. */
+    public static final String EXTENSION = ".wire";
+
+    /**
+     * Creates a recorder writing a capture file per connection to the given directory.
+     *
+     * @param prefix the prefix of each capture file name, which is followed by the time the
+     * connection was opened.
+     */
+    public WireRecorder (File directory, String prefix)
+    {
+        _directory = directory;
+        _prefix = prefix;
+    }
+
+    /**
+     * Returns the capture file currently being written, or null if no connection is recorded.
+     */
+    public synchronized File getFile ()
+    {
+        return _file;
+    }
+
+    /**
+     * Returns the number of frames recorded since this recorder was created.
+     */
+    public synchronized long getFrames ()
+    {
+        return _frames;
+    }
+
+    /**
+     * Called when a connection is opened, starts a new capture file.
+     *
+     * @param secure whether the connection authenticates through a secure handshake.
+     */
+    public synchronized void connectionOpened (boolean secure)
+    {
+        close();
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(_directory, _prefix + "-" + stamp + "-" + (_count++) + EXTENSION);
+        try {
+            _out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+            _out.writeInt(MAGIC);
+            _out.writeShort(VERSION);
+            _out.writeLong(System.currentTimeMillis());
+            _out.writeBoolean(secure);
+            _file = file;
+            _start = System.nanoTime();
+        } catch (IOException ioe) {
+            log.warning("Unable to start wire capture", "file", file, ioe);
+            close();
+        }
+    }
+
+    /**
+     * Called with each complete frame read from the connection.
+     *
+     * @param frame the frame, starting with its length header. Its position is left unchanged.
+     */
+    public synchronized void frameReceived (ByteBuffer frame)
+    {
+        if (_out == null) {
+            return;
+        }
+        try {
+            _out.writeLong(System.nanoTime() - _start);
+            if (frame.hasArray()) {
+                _out.write(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+            } else {
+                int length = frame.remaining();
+                if (_copy == null || _copy.length < length) {
+                    _copy = new byte[Math.max(length, BUFFER_SIZE)];
+                }
+                frame.duplicate().get(_copy, 0, length);
+                _out.write(_copy, 0, length);
+            }
+            _frames++;
+        } catch (IOException ioe) {
+            log.warning("Unable to write wire capture, stopping", "file", _file, ioe);
+            close();
+        }
+    }
+
+    /**
+     * Called when the connection is closed, completes the capture file.
+     */
+    public synchronized void connectionClosed ()
+    {
+        close();
+    }
+
+    protected void close ()
+    {
+        if (_out != null) {
+            try {
+                _out.close();
+            } catch (IOException ioe) {
+                log.warning("Unable to close wire capture", "file", _file, ioe);
+            }
+            _out = null;
+        }
+        _file = null;
+    }
+
+    /** The directory in which capture files are written. */
+    protected File _directory;
+
+    /** The prefix of capture file names. */
+    protected String _prefix;
+
+    /** The stream of the current capture file, or null. */
+    protected DataOutputStream _out;
+
+    /** The current capture file, or null. */
+    protected File _file;
+
+    /** The time at which the current capture was started, in nanoseconds. */
+    protected long _start;
+
+    /** The number of capture files started, to disambiguate files started in the same second. */
+    protected int _count;
+
+    /** The number of frames recorded. */
+    protected long _frames;
+
+    /** Used to copy frames that aren't backed by an array, grown as needed. */
+    protected byte[] _copy;
+
+    /** The size of the output buffer. */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+}
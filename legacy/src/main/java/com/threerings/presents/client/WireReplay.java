@@ -0,0 +1,218 @@
+//
+// $Id$
+//
+// Narya library - tools for developing networked games
+// Copyright (C) 2002-2012 Three Rings Design, Inc., All Rights Reserved
+// http://code.google.com/p/narya/
+//
+// This library is free software; you can redistribute it and/or modify it
+// under the terms of the GNU Lesser General Public License as published
+// by the Free Software Foundation; either version 2.1 of the License, or
+// (at your option) any later version.
+//
+// This library is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+// Lesser General Public License for more details.
+//
+// You should have received a copy of the GNU Lesser General Public
+// License along with this library; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+
+package com.threerings.presents.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A channel serving the frames of a capture written by a {@link WireRecorder}, either at the pace
+ * at which they were originally received or as fast as they are read.
+ */
+public class WireReplay
+    implements ReadableByteChannel
+{
+    /**
+     * Opens the supplied capture file for replay.
+     *
+     * @param paced whether to deliver each frame no sooner than it was originally received,
+     * relative to the first read, or as fast as possible.
+     *
+     * @throws IOException if the file cannot be read or is not a capture file.
+     */
+    public WireReplay (File file, boolean paced)
+        throws IOException
+    {
+        _in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        try {
+            if (_in.readInt() != WireRecorder.MAGIC) {
+                throw new IOException("Not a wire capture: " + file);
+            }
+            short version = _in.readShort();
+            if (version != WireRecorder.VERSION) {
+                throw new IOException("Unsupported wire capture version: " + version);
+            }
+            _startTime = _in.readLong();
+            _secure = _in.readBoolean();
+        } catch (IOException ioe) {
+            _in.close();
+            throw ioe;
+        }
+        _paced = paced;
+    }
+
+    /**
+     * Returns the time at which the capture was started.
+     */
+    public long getStartTime ()
+    {
+        return _startTime;
+    }
+
+    /**
+     * Returns whether the captured connection authenticated through a secure handshake, in which
+     * case the replaying client must be configured with a public key.
+     */
+    public boolean isSecure ()
+    {
+        return _secure;
+    }
+
+    /**
+     * Returns the number of frames delivered so far.
+     */
+    public long getFrames ()
+    {
+        return _frames;
+    }
+
+    /**
+     * Returns the number of bytes delivered so far.
+     */
+    public long getBytes ()
+    {
+        return _bytes;
+    }
+
+    // from interface ReadableByteChannel
+    public int read (ByteBuffer dst)
+        throws IOException
+    {
+        if (_in == null) {
+            throw new ClosedChannelException();
+        }
+        if (_frame == null || !_frame.hasRemaining()) {
+            if (!nextFrame()) {
+                return -1;
+            }
+        }
+
+        int length = Math.min(dst.remaining(), _frame.remaining());
+        int limit = _frame.limit();
+        _frame.limit(_frame.position() + length);
+        dst.put(_frame);
+        _frame.limit(limit);
+        _bytes += length;
+        return length;
+    }
+
+    // from interface Channel
+    public boolean isOpen ()
+    {
+        return (_in != null);
+    }
+
+    // from interface Channel
+    public void close ()
+        throws IOException
+    {
+        if (_in != null) {
+            _in.close();
+            _in = null;
+        }
+    }
+
+    /**
+     * Loads the next frame of the capture, waiting for its time to come if we're paced.
+     *
+     * @return false if the end of the capture was reached.
+     */
+    protected boolean nextFrame ()
+        throws IOException
+    {
+        long stamp;
+        try {
+            stamp = _in.readLong();
+        } catch (EOFException eofe) {
+            return false;
+        }
+        int length = _in.readInt();
+        if (length < HEADER_SIZE) {
+            throw new IOException("Corrupt wire capture, invalid frame length: " + length);
+        }
+        if (_buffer == null || _buffer.length < length) {
+            _buffer = new byte[Math.max(length, 2 * (_buffer == null ? 0 : _buffer.length))];
+        }
+        _buffer[0] = (byte)(length >>> 24);
+        _buffer[1] = (byte)(length >>> 16);
+        _buffer[2] = (byte)(length >>> 8);
+        _buffer[3] = (byte)length;
+        _in.readFully(_buffer, HEADER_SIZE, length - HEADER_SIZE);
+        _frame = ByteBuffer.wrap(_buffer, 0, length);
+
+        if (_paced) {
+            if (_replayStart == 0L) {
+                _replayStart = System.nanoTime() - stamp;
+            }
+            long delay = _replayStart + stamp - System.nanoTime();
+            if (delay > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+        _frames++;
+        return true;
+    }
+
+    /** The stream of the capture file, or null once closed. */
+    protected DataInputStream _in;
+
+    /** Whether frames are delivered at their original pace. */
+    protected boolean _paced;
+
+    /** The time at which the capture was started. */
+    protected long _startTime;
+
+    /** Whether the captured connection was secured. */
+    protected boolean _secure;
+
+    /** The time, in nanoseconds, matching the start of the capture in the replay. */
+    protected long _replayStart;
+
+    /** Holds the frame being delivered. */
+    protected byte[] _buffer;
+
+    /** The remaining bytes of the frame being delivered. */
+    protected ByteBuffer _frame;
+
+    /** The number of frames and bytes delivered. */
+    protected long _frames, _bytes;
+
+    /** The size of the frame length header. */
+    protected static final int HEADER_SIZE = 4;
+
+    /** The size of the input buffer. */
+    protected static final int BUFFER_SIZE = 64 * 1024;
+}
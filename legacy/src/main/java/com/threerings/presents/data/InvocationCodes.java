@@ -50,4 +50,8 @@ public interface InvocationCodes
     /** An error code returned to clients when a service cannot be performed because the requesting
      * client does not have the proper access. */
     public static final String E_ACCESS_DENIED = "e.access_denied";
+
+    /** An error code reported to the listener of a request when the server did not respond to it
+     * within the maximum listener age of the client. */
+    public static final String REQUEST_TIMED_OUT = "m.request_timed_out";
 }
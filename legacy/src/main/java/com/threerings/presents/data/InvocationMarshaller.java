@@ -26,6 +26,7 @@ import com.threerings.io.Streamable;
 import com.threerings.presents.client.Client;
 import com.threerings.presents.client.ClientObjectInputStream;
 import com.threerings.presents.client.InvocationDirector;
+import com.threerings.presents.client.InvocationFuture;
 import com.threerings.presents.client.InvocationService;
 import com.threerings.presents.dobj.DObjectManager;
 import com.threerings.presents.dobj.InvocationResponseEvent;
@@ -239,6 +240,14 @@ public class InvocationMarshaller<T extends ClientObject>
         _invOid = invOid;
     }
 
+    /**
+     * Returns the oid of the invocation object to which this marshaller sends its requests.
+     */
+    public int getInvocationOid ()
+    {
+        return _invOid;
+    }
+
     /**
      * Returns the code assigned to this marshaller.
      */
@@ -247,6 +256,25 @@ public class InvocationMarshaller<T extends ClientObject>
         return _invCode;
     }
 
+    /**
+     * Sends the specified invocation service request, whose last argument is a result listener
+     * which is supplied by the returned future. See {@link InvocationDirector#requestResult}.
+     */
+    public <R> InvocationFuture<R> requestResult (
+        int methodId, Class<R> resultType, long timeout, Object... args)
+    {
+        return _invdir.requestResult(_invOid, _invCode, methodId, args, resultType, timeout);
+    }
+
+    /**
+     * Sends the specified invocation service request, whose last argument is a confirm listener
+     * which is supplied by the returned future. See {@link InvocationDirector#requestConfirm}.
+     */
+    public InvocationFuture<Void> requestConfirm (int methodId, long timeout, Object... args)
+    {
+        return _invdir.requestConfirm(_invOid, _invCode, methodId, args, timeout);
+    }
+
     /**
      * A convenience method to indicate that the listener is not going to be responded-to, and that
      * this is ok.
@@ -21,6 +21,7 @@
 
 package com.threerings.presents.dobj;
 
+import com.google.common.collect.Lists;
 import com.samskivert.util.ArrayUtil;
 import com.threerings.io.ObjectInputStream;
 import com.threerings.io.ObjectOutputStream;
@@ -92,51 +93,40 @@ public class DSet<E extends DSet.Entry>
     /**
      * Creates a distributed set and populates it with values from the supplied iterator. This
      * should be done before the set is unleashed into the wild distributed object world because no
-     * associated entry added events will be generated. Additionally, this operation does not check
-     * for duplicates when adding entries, so one should be sure that the iterator contains only
-     * unique entries.
+     * associated entry added events will be generated. Null entries are skipped, and so are entries
+     * whose key duplicates that of an earlier entry, with a warning.
      *
      * @param source an iterator from which we will initially populate the set.
      */
     public DSet (Iterable<? extends E> source)
     {
-        for (E e : source) {
-            add(e);
-        }
+        addAll(Lists.newArrayList(source));
     }
 
     /**
      * Creates a distributed set and populates it with values from the supplied iterator. This
      * should be done before the set is unleashed into the wild distributed object world because no
-     * associated entry added events will be generated. Additionally, this operation does not check
-     * for duplicates when adding entries, so one should be sure that the iterator contains only
-     * unique entries.
+     * associated entry added events will be generated. Null entries are skipped, and so are entries
+     * whose key duplicates that of an earlier entry, with a warning.
      *
      * @param source an iterator from which we will initially populate the set.
      */
     public DSet (Iterator<? extends E> source)
     {
-        while (source.hasNext()) {
-            add(source.next());
-        }
+        addAll(Lists.newArrayList(source));
     }
 
     /**
      * Creates a distributed set and populates it with values from the supplied array. This should
      * be done before the set is unleashed into the wild distributed object world because no
-     * associated entry added events will be generated. Additionally, this operation does not check
-     * for duplicates when adding entries, so one should be sure that the iterator contains only
-     * unique entries.
+     * associated entry added events will be generated. Null entries are skipped, and so are entries
+     * whose key duplicates that of an earlier entry, with a warning.
      *
      * @param source an array from which we will initially populate the set.
      */
     public DSet (E[] source)
     {
-        for (E element : source) {
-            if (element != null) {
-                add(element);
-            }
-        }
+        addAll(Arrays.asList(source));
     }
 
     /**
@@ -187,9 +177,10 @@ public class DSet<E extends DSet.Entry>
      */
     public E get (Comparable<?> key)
     {
-        // determine where we'll be adding the new element
-        int eidx = ArrayUtil.binarySearch(
-            _entries, 0, _size, new SimpleEntry<Comparable<?>>(key), ENTRY_COMP);
+        if (_index != null) {
+            return _index.get(key);
+        }
+        int eidx = indexOf(key);
         return (eidx < 0) ? null : _entries[eidx];
     }
 
@@ -349,9 +340,72 @@ public class DSet<E extends DSet.Entry>
         _size++;
         _modCount++;
 
+        if (_index != null) {
+            _index.put(elem.getKey(), elem);
+        } else {
+            checkIndex();
+        }
         return true;
     }
 
+    /**
+     * Adds all of the specified entries to the set in a single pass, sorting them and merging
+     * them with the existing entries rather than inserting them one at a time. Null entries and
+     * entries that are already in the set (or duplicated in the supplied collection) are skipped.
+     * Like {@link #add}, this should not be called directly on a set contained in a distributed
+     * object.
+     *
+     * @return the number of entries that were added.
+     */
+    protected int addAll (Collection<? extends E> elems)
+    {
+        @SuppressWarnings("unchecked") E[] sorted = (E[])elems.toArray(new Entry[elems.size()]);
+        int count = 0;
+        for (E elem : sorted) {
+            if (elem != null) {
+                sorted[count++] = elem;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted, 0, count, ENTRY_COMP);
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < _size + count) {
+            capacity <<= 1;
+        }
+        @SuppressWarnings("unchecked") E[] merged = (E[])new Entry[capacity];
+        int eidx = 0, midx = 0;
+        for (int ii = 0; ii < count; ii++) {
+            E elem = sorted[ii];
+
+            // copy over the existing entries that sort before this one
+            int cmp = 1;
+            while (eidx < _size && (cmp = ENTRY_COMP.compare(_entries[eidx], elem)) < 0) {
+                merged[midx++] = _entries[eidx++];
+            }
+            if ((eidx < _size && cmp == 0) ||
+                (midx > 0 && ENTRY_COMP.compare(merged[midx-1], elem) == 0)) {
+                log.warning("Refusing to add duplicate entry", "entry", elem, "set", this,
+                            new Exception());
+                continue;
+            }
+            merged[midx++] = elem;
+            if (_index != null) {
+                _index.put(elem.getKey(), elem);
+            }
+        }
+        int added = midx - eidx;
+        System.arraycopy(_entries, eidx, merged, midx, _size - eidx);
+        _entries = merged;
+        _size = midx + (_size - eidx);
+        _modCount++;
+
+        checkIndex();
+        return added;
+    }
+
     /**
      * Removes the specified entry from the set. This should not be called directly, instead the
      * associated <code>removeFrom{Set}()</code> method should be called on the distributed object
@@ -380,8 +434,7 @@ public class DSet<E extends DSet.Entry>
         }
 
         // look up this entry's position in our set
-        int eidx = ArrayUtil.binarySearch(
-            _entries, 0, _size, new SimpleEntry<Comparable<?>>(key), ENTRY_COMP);
+        int eidx = indexOf(key);
 
         // if we found it, remove it
         if (eidx >= 0) {
@@ -401,6 +454,10 @@ public class DSet<E extends DSet.Entry>
                 _entries[_size] = null;
             }
             _modCount++;
+            if (_index != null) {
+                _index.remove(key);
+                checkIndex();
+            }
             return oldEntry;
 
         } else {
@@ -408,6 +465,66 @@ public class DSet<E extends DSet.Entry>
         }
     }
 
+    /**
+     * Removes from the set all of the entries whose keys match one of the supplied keys, in a
+     * single pass over the set. Null keys are ignored. Like {@link #removeKey}, this should not be
+     * called directly on a set contained in a distributed object.
+     *
+     * @return the number of entries that were removed.
+     */
+    protected int removeAll (Collection<? extends Comparable<?>> keys)
+    {
+        Comparable<?>[] sorted = keys.toArray(new Comparable<?>[keys.size()]);
+        int count = 0;
+        for (Comparable<?> key : sorted) {
+            if (key != null) {
+                sorted[count++] = key;
+            }
+        }
+        if (count == 0 || _size == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted, 0, count, KEY_COMP);
+
+        int kidx = 0, nsize = 0;
+        for (int ii = 0; ii < _size; ii++) {
+            E entry = _entries[ii];
+            Comparable<?> key = entry.getKey();
+            while (kidx < count && compare(sorted[kidx], key) < 0) {
+                kidx++;
+            }
+            if (kidx < count && compare(sorted[kidx], key) == 0) {
+                if (_index != null) {
+                    _index.remove(key);
+                }
+                continue;
+            }
+            _entries[nsize++] = entry;
+        }
+        int removed = _size - nsize;
+        if (removed == 0) {
+            return 0;
+        }
+
+        if ((_entries.length > INITIAL_CAPACITY) && (nsize < _entries.length/8)) {
+            // if we're using less than 1/8 of our capacity, shrink to fit
+            int capacity = INITIAL_CAPACITY;
+            while (capacity < nsize * 2) {
+                capacity <<= 1;
+            }
+            @SuppressWarnings("unchecked") E[] newEnts = (E[])new Entry[capacity];
+            System.arraycopy(_entries, 0, newEnts, 0, nsize);
+            _entries = newEnts;
+        } else {
+            Arrays.fill(_entries, nsize, _size, null);
+        }
+        _size = nsize;
+        _modCount++;
+
+        checkIndex();
+        return removed;
+    }
+
     /**
      * Updates the specified entry by locating an entry whose key matches the key of the supplied
      * entry and overwriting it. This should not be called directly, instead the associated
@@ -427,6 +544,9 @@ public class DSet<E extends DSet.Entry>
             E oldEntry = _entries[eidx];
             _entries[eidx] = elem;
             _modCount++;
+            if (_index != null) {
+                _index.put(elem.getKey(), elem);
+            }
             return oldEntry;
         } else {
             return null;
@@ -441,6 +561,59 @@ public class DSet<E extends DSet.Entry>
         return 2048;
     }
 
+    /**
+     * Returns the size at which this set starts maintaining a hashed index of its entries by key,
+     * making {@link #get} constant time at the cost of some memory and slower mutations. The
+     * index is dropped again when the set shrinks below half this size. By default sets are
+     * never indexed; derived classes used for very large sets can lower this.
+     */
+    protected int getIndexThreshold ()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Locates the entry with the supplied key using a binary search, without allocating a key
+     * entry to compare against.
+     *
+     * @return the index of the entry, or <code>(-(insertion point) - 1)</code> if no entry has
+     * the key.
+     */
+    protected int indexOf (Comparable<?> key)
+    {
+        int low = 0, high = _size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(_entries[mid].getKey(), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Creates or drops our hashed index depending on our size.
+     */
+    protected void checkIndex ()
+    {
+        int threshold = getIndexThreshold();
+        if (_index == null) {
+            if (_size >= threshold) {
+                _index = new HashMap<Comparable<?>, E>(_size * 2);
+                for (int ii = 0; ii < _size; ii++) {
+                    _index.put(_entries[ii].getKey(), _entries[ii]);
+                }
+            }
+        } else if (_size < threshold / 2) {
+            _index = null;
+        }
+    }
+
     /**
      * Generates a shallow copy of this object in a type safe manner.
      *
@@ -464,6 +637,7 @@ public class DSet<E extends DSet.Entry>
             nset._entries = copy;
             System.arraycopy(_entries, 0, nset._entries, 0, _entries.length);
             nset._modCount = 0;
+            nset._index = (_index == null) ? null : new HashMap<Comparable<?>, E>(_index);
             return nset;
         } catch (CloneNotSupportedException cnse) {
             throw new AssertionError(cnse);
@@ -512,6 +686,8 @@ public class DSet<E extends DSet.Entry>
             @SuppressWarnings("unchecked") E entry = (E)in.readObject();
             _entries[ii] = entry;
         }
+        _index = null;
+        checkIndex();
     }
 
     /** The entries of the set (in a sparse array). */
@@ -523,6 +699,9 @@ public class DSet<E extends DSet.Entry>
     /** Used to check for concurrent modification. */
     protected transient int _modCount;
 
+    /** Our entries by key, once we're larger than {@link #getIndexThreshold}, otherwise null. */
+    protected transient HashMap<Comparable<?>, E> _index;
+
     /** The default capacity of a set instance. */
     protected static final int INITIAL_CAPACITY = 2;
 
@@ -532,4 +711,11 @@ public class DSet<E extends DSet.Entry>
             return DSet.compare(e1.getKey(), e2.getKey());
         }
     };
+
+    /** Used to sort keys for bulk removals. */
+    protected static Comparator<Comparable<?>> KEY_COMP = new Comparator<Comparable<?>>() {
+        public int compare (Comparable<?> c1, Comparable<?> c2) {
+            return DSet.compare(c1, c2);
+        }
+    };
 }
\ No newline at end of file
@@ -43,6 +43,9 @@ import static com.threerings.presents.Log.log;
  * <p> The server object manager is meant to run on the main thread of the server application and
  * thus provides a method to be invoked by the application main thread which won't return until the
  * manager has been requested to shut down.
+ *
+ * <p> Optionally, the events can be dispatched by several threads instead, see
+ * {@link #setDispatchShards}.
  */
 @Singleton
 public class PresentsDObjectMgr
@@ -81,7 +84,7 @@ public class PresentsDObjectMgr
             public void appendReport (StringBuilder report, long now, long elapsed, boolean reset) {
                 report.append("* presents.PresentsDObjectMgr:\n");
                 Stats stats = getStats(reset);
-                int queueSize = _evqueue.size();
+                int queueSize = getQueueSize();
                 report.append("- Queue size: ").append(queueSize).append("\n");
                 report.append("- Max queue size: ").append(stats.maxQueueSize).append("\n");
                 report.append("- Units executed: ").append(stats.eventCount);
@@ -133,13 +136,56 @@ public class PresentsDObjectMgr
         _defaultController = controller;
 
         // switch all objects from the old default (null, usually) to the new default.
-        for (DObject obj : _objects.values()) {
-            if (oldDefault == obj.getAccessController()) {
-                obj.setAccessController(controller);
+        synchronized (_objects) {
+            for (DObject obj : _objects.values()) {
+                if (oldDefault == obj.getAccessController()) {
+                    obj.setAccessController(controller);
+                }
             }
         }
     }
 
+    /**
+     * Configures the number of threads dispatching events. By default, a single thread runs
+     * everything, but with several shards the events targeting an object are dispatched by the
+     * shard that object belongs to, per its oid, which preserves the order of the events of each
+     * object while those of different objects are dispatched in parallel. This must be called
+     * before any object is registered or any event is posted.
+     *
+     * <p> Runnables, as well as invocation requests, are still run by the thread calling {@link
+     * #run}. Subscribers and listeners of an object are notified on its shard, so any state they
+     * share with code running elsewhere must be thread-safe, or be handed over via {@link
+     * #postRunnable(int,Runnable)} or {@link #postRunnable(Runnable)}. Likewise, once the manager
+     * is started, the subscribers and listeners of an object must only be added or removed on its
+     * shard, see {@link #isDispatchThread(int)} and {@link #requireEventThread(int)}.
+     *
+     * @param shards the number of shards, one or less to dispatch everything on the main event
+     * thread.
+     */
+    public void setDispatchShards (int shards)
+    {
+        if (_dobjThread != null) {
+            throw new IllegalStateException("Dispatch shards must be set up before we're started");
+        }
+        if (shards <= 1) {
+            _shards = null;
+            return;
+        }
+        _shards = new Shard[shards];
+        for (int ii = 0; ii < shards; ii++) {
+            _shards[ii] = new Shard(ii);
+        }
+    }
+
+    /**
+     * Returns the number of threads dispatching events, one unless configured otherwise via
+     * {@link #setDispatchShards}.
+     */
+    public int getDispatchShards ()
+    {
+        return (_shards == null) ? 1 : _shards.length;
+    }
+
     /**
      * Registers an object managed by another distributed object manager (probably on another
      * server). The local server will assign the object a proxy oid, and any events that come in on
@@ -153,7 +199,9 @@ public class PresentsDObjectMgr
         registerObject(object);
         // and note a proxy reference for the object which we'll use to forward events back to its
         // originating manager after converting them back to the original oid
-        _proxies.put(object.getOid(), new ProxyReference(origObjectId, omgr));
+        synchronized (_objects) {
+            _proxies.put(object.getOid(), new ProxyReference(origObjectId, omgr));
+        }
     }
 
     /**
@@ -163,10 +211,12 @@ public class PresentsDObjectMgr
      */
     public void clearProxyObject (int origObjectId, DObject object)
     {
-        if (_proxies.remove(object.getOid()) == null) {
-            log.warning("Missing proxy mapping for cleared proxy", "ooid", origObjectId);
+        synchronized (_objects) {
+            if (_proxies.remove(object.getOid()) == null) {
+                log.warning("Missing proxy mapping for cleared proxy", "ooid", origObjectId);
+            }
+            _objects.remove(object.getOid());
         }
-        _objects.remove(object.getOid());
     }
 
     // from interface DObjectManager
@@ -200,7 +250,7 @@ public class PresentsDObjectMgr
 
         // assign the event's id and append it to the queue
         event.eventId = getNextEventId(true);
-        _evqueue.append(event);
+        getQueue(event).append(event);
     }
 
     // from interface DObjectManager
@@ -215,24 +265,26 @@ public class PresentsDObjectMgr
     // from interface RootDObjectManager
     public <T extends DObject> T registerObject (T object)
     {
-        if (_dobjThread != null && !isDispatchThread()) {
+        if (_dobjThread != null && !isEventThread()) {
             log.warning("Registering DObject on non-dobject thread",
                         "class", object.getClass().getName(), new Exception());
         }
 
-        int oid = getNextOid();
+        synchronized (_objects) {
+            int oid = getNextOid();
 
-        // initialize this object
-        object.setOid(oid);
-        object.setManager(this);
+            // initialize this object
+            object.setOid(oid);
+            object.setManager(this);
 
-        // set the default access controller if a controller hasn't already been specified
-        if (object.getAccessController() == null) {
-            object.setAccessController(_defaultController);
-        }
+            // set the default access controller if a controller hasn't already been specified
+            if (object.getAccessController() == null) {
+                object.setAccessController(_defaultController);
+            }
 
-        // insert it into the table
-        _objects.put(oid, object);
+            // insert it into the table
+            _objects.put(oid, object);
+        }
 
 //         log.info("Registered object", "obj", object);
 
@@ -275,7 +327,9 @@ public class PresentsDObjectMgr
      */
     public DObject getObject (int oid)
     {
-        return _objects.get(oid);
+        synchronized (_objects) {
+            return _objects.get(oid);
+        }
     }
 
     /**
@@ -286,12 +340,22 @@ public class PresentsDObjectMgr
      * has ever been taken, the current stats that have been accumulting since the JVM start will
      * be returned.
      */
-    public Stats getStats (boolean snapshot)
+    public synchronized Stats getStats (boolean snapshot)
     {
         if (snapshot) {
-            _recent = _current;
-            _current = new Stats();
-            _current.maxQueueSize = _evqueue.size();
+            // each dispatching thread only updates its own stats, so we swap them all out and
+            // total them up once they're no longer being updated
+            Stats recent = _current;
+            _current = newStats(_evqueue);
+            if (_shards != null) {
+                for (Shard shard : _shards) {
+                    Stats stats = shard.stats;
+                    shard.stats = newStats(shard.queue);
+                    recent.maxQueueSize += stats.maxQueueSize;
+                    recent.eventCount += stats.eventCount;
+                }
+            }
+            _recent = recent;
         }
         return _recent;
     }
@@ -321,18 +385,80 @@ public class PresentsDObjectMgr
         _evqueue.append(unit);
     }
 
+    /**
+     * Posts a unit of code that should be run by the thread dispatching the events of the
+     * specified object, after the events already posted to that object. Without dispatch shards,
+     * this is the same as {@link #postRunnable(Runnable)}.
+     */
+    public void postRunnable (int oid, Runnable unit)
+    {
+        if (_shards == null) {
+            postRunnable(unit);
+            return;
+        }
+        if (!_running) {
+            log.warning("Posting runnable to inactive object manager", "unit", unit,
+                        new Exception());
+        }
+        getShard(oid).queue.append(unit);
+    }
+
+    /**
+     * Returns a run queue that runs its units on the thread dispatching the events of the
+     * specified object, see {@link #postRunnable(int,Runnable)}. This is notably useful to create
+     * {@link Interval}s that work with that object.
+     */
+    public RunQueue getRunQueue (final int oid)
+    {
+        if (_shards == null) {
+            return this;
+        }
+        return new RunQueue() {
+            public void postRunnable (Runnable unit) {
+                PresentsDObjectMgr.this.postRunnable(oid, unit);
+            }
+            public boolean isDispatchThread () {
+                return PresentsDObjectMgr.this.isDispatchThread(oid);
+            }
+            public boolean isRunning () {
+                return PresentsDObjectMgr.this.isRunning();
+            }
+        };
+    }
+
     /**
      * Returns true if the thread invoking this method is the same thread that is doing distributed
      * object event dispatch. Code that wishes to enforce that it is either always or never called
-     * on the event dispatch thread will want to make use of this method.
+     * on the event dispatch thread will want to make use of this method. With dispatch shards,
+     * this is only true of the main event thread, the one running the units posted via {@link
+     * #postRunnable(Runnable)}; use {@link #isDispatchThread(int)} for code dealing with the
+     * events, subscribers or listeners of a particular object.
      *
      * From interface RunQueue
      */
-    public synchronized boolean isDispatchThread ()
+    public boolean isDispatchThread ()
     {
         return Thread.currentThread() == _dobjThread;
     }
 
+    /**
+     * Returns true if the thread invoking this method is the one dispatching the events of the
+     * specified object.
+     */
+    public boolean isDispatchThread (int oid)
+    {
+        return (_shards == null) ? isDispatchThread() : Thread.currentThread() == getShard(oid);
+    }
+
+    /**
+     * Returns true if the thread invoking this method is dispatching distributed object units,
+     * that is the main event thread or, with dispatch shards, any of the shards.
+     */
+    public boolean isEventThread ()
+    {
+        return isDispatchThread() || (_shards != null && Thread.currentThread() instanceof Shard);
+    }
+
     /**
      * Ensures that the calling thread is the distributed object event dispatch thread, throwing an
      * {@link IllegalStateException} if it is not. <em>Note:</em> before the manager is started up,
@@ -340,20 +466,33 @@ public class PresentsDObjectMgr
      * initialization are considered safe and only after the distributed object manager is started
      * (and the event thread is established) will we require it.
      */
-    public synchronized void requireEventThread ()
+    public void requireEventThread ()
     {
         if (_dobjThread != null && !isDispatchThread()) {
             throw new IllegalStateException("This method must be called on the dobj event thread.");
         }
     }
 
+    /**
+     * Ensures that the calling thread is the one dispatching the events of the specified object,
+     * throwing an {@link IllegalStateException} if it is not. Like {@link #requireEventThread()},
+     * all calls succeed until the manager is started up.
+     */
+    public void requireEventThread (int oid)
+    {
+        if (_dobjThread != null && !isDispatchThread(oid)) {
+            throw new IllegalStateException(
+                "This method must be called on the thread dispatching the events of " + oid + ".");
+        }
+    }
+
     /**
      * Ensures that the calling thread <em>is not</em> the distributed object event dispatch
      * thread, throwing an {@link IllegalStateException} if it is.
      */
     public void refuseEventThread ()
     {
-        if (isDispatchThread()) {
+        if (isEventThread()) {
             throw new IllegalStateException(
                 "This method must not be called on the dobj event thread.");
         }
@@ -371,12 +510,31 @@ public class PresentsDObjectMgr
         synchronized (this) {
             _dobjThread = Thread.currentThread();
         }
+        if (_shards != null) {
+            for (Shard shard : _shards) {
+                shard.start();
+            }
+        }
 
         while (isRunning()) {
             // pop the next unit off the queue and process it
             processUnit(_evqueue.get());
         }
 
+        // let the shards finish what they have been given and wait for them to do so
+        if (_shards != null) {
+            for (Shard shard : _shards) {
+                shard.queue.append(SHARD_EXIT);
+            }
+            for (Shard shard : _shards) {
+                try {
+                    shard.join();
+                } catch (InterruptedException ie) {
+                    log.warning("Interrupted while waiting for dispatch shard", "shard", shard);
+                }
+            }
+        }
+
         log.info("DOMGR exited.");
     }
 
@@ -613,6 +771,13 @@ public class PresentsDObjectMgr
      */
     public boolean queueIsEmpty ()
     {
+        if (_shards != null) {
+            for (Shard shard : _shards) {
+                if (shard.queue.hasElements()) {
+                    return false;
+                }
+            }
+        }
         return !_evqueue.hasElements();
     }
 
@@ -633,9 +798,10 @@ public class PresentsDObjectMgr
         long start = System.nanoTime();
 
         // keep track of the largest queue size we've seen
-        int queueSize = _evqueue.size();
-        if (queueSize > _current.maxQueueSize) {
-            _current.maxQueueSize = queueSize;
+        Stats stats = getCurrentStats();
+        int queueSize = getCurrentQueue().size();
+        if (queueSize > stats.maxQueueSize) {
+            stats.maxQueueSize = queueSize;
         }
 
         try {
@@ -647,7 +813,10 @@ public class PresentsDObjectMgr
                 DEvent event = (DEvent)unit;
 
                 // if this event is on a proxied object, forward it to the owning manager
-                ProxyReference proxy = _proxies.get(event.getTargetOid());
+                ProxyReference proxy;
+                synchronized (_objects) {
+                    proxy = _proxies.get(event.getTargetOid());
+                }
                 if (proxy != null) {
                     // rewrite the oid into the originating manager's id space
                     event.setTargetOid(proxy.origObjectId);
@@ -679,7 +848,7 @@ public class PresentsDObjectMgr
         }
 
         // periodically sample and record the time spent processing a unit
-        if (UNIT_PROF_ENABLED && _eventCount % _unitProfInterval == 0) {
+        if (UNIT_PROF_ENABLED && getCurrentEventCount() % _unitProfInterval == 0) {
             String cname;
             // do some jiggery pokery to get more fine grained profiling details on certain
             // "popular" unit types
@@ -694,11 +863,13 @@ public class PresentsDObjectMgr
             } else {
                 cname = StringUtil.shortClassName(unit);
             }
-            UnitProfile uprof = _profiles.get(cname);
-            if (uprof == null) {
-                _profiles.put(cname, uprof = new UnitProfile());
+            synchronized (_profiles) {
+                UnitProfile uprof = _profiles.get(cname);
+                if (uprof == null) {
+                    _profiles.put(cname, uprof = new UnitProfile());
+                }
+                uprof.record(elapsed);
             }
-            uprof.record(elapsed);
         }
     }
 
@@ -711,7 +882,7 @@ public class PresentsDObjectMgr
         int ecount = events.size();
 
         // look up the target object
-        DObject target = _objects.get(event.getTargetOid());
+        DObject target = getObject(event.getTargetOid());
         if (target == null) {
             log.debug("Compound event target no longer exists", "event", event);
             return;
@@ -741,7 +912,7 @@ public class PresentsDObjectMgr
     protected void processEvent (DEvent event)
     {
         // look up the target object
-        DObject target = _objects.get(event.getTargetOid());
+        DObject target = getObject(event.getTargetOid());
         if (target == null) {
             log.debug("Event target no longer exists", "event", event);
             return;
@@ -772,8 +943,13 @@ public class PresentsDObjectMgr
             // do any internal management necessary based on this event
             EventHelper helper = _helpers.get(event.getClass());
             if (helper != null) {
+                // the helpers maintain the object tables, which the shards share
+                boolean proceed;
+                synchronized (_objects) {
+                    proceed = helper.invoke(event, target);
+                }
                 // if helper returns false, we abort event processing
-                if (!helper.invoke(event, target)) {
+                if (!proceed) {
                     return false;
                 }
             }
@@ -795,8 +971,13 @@ public class PresentsDObjectMgr
         }
 
         // track the number of events dispatched
-        ++_eventCount;
-        ++_current.eventCount;
+        Thread thread = Thread.currentThread();
+        if (thread instanceof Shard) {
+            ++((Shard)thread).eventCount;
+        } else {
+            ++_eventCount;
+        }
+        ++getCurrentStats().eventCount;
         return true;
     }
 
@@ -846,6 +1027,80 @@ public class PresentsDObjectMgr
         }
     }
 
+    /**
+     * Returns the queue on which the supplied event or runnable is to be dispatched.
+     */
+    protected Queue<Object> getQueue (Object unit)
+    {
+        // invocation requests run service code, which expects to be on the main event thread
+        if (_shards == null || unit instanceof Runnable || unit instanceof InvocationRequestEvent) {
+            return _evqueue;
+        }
+        // access events target the dummy object, so we use the oid being accessed instead
+        int oid = (unit instanceof AccessObjectEvent<?>) ?
+            ((AccessObjectEvent<?>)unit)._oid : ((DEvent)unit).getTargetOid();
+        return getShard(oid).queue;
+    }
+
+    /**
+     * Returns the dispatch shard handling the specified object.
+     */
+    protected Shard getShard (int oid)
+    {
+        return _shards[Math.abs(oid % _shards.length)];
+    }
+
+    /**
+     * Returns the queue from which the calling thread dispatches units.
+     */
+    protected Queue<Object> getCurrentQueue ()
+    {
+        Thread thread = Thread.currentThread();
+        return (thread instanceof Shard) ? ((Shard)thread).queue : _evqueue;
+    }
+
+    /**
+     * Returns the stats updated by the calling thread, see {@link #getCurrentQueue}.
+     */
+    protected Stats getCurrentStats ()
+    {
+        Thread thread = Thread.currentThread();
+        return (thread instanceof Shard) ? ((Shard)thread).stats : _current;
+    }
+
+    /**
+     * Returns the number of events dispatched by the calling thread, see {@link #getCurrentQueue}.
+     */
+    protected long getCurrentEventCount ()
+    {
+        Thread thread = Thread.currentThread();
+        return (thread instanceof Shard) ? ((Shard)thread).eventCount : _eventCount;
+    }
+
+    /**
+     * Creates the stats of a new period for the thread dispatching the supplied queue.
+     */
+    protected static Stats newStats (Queue<Object> queue)
+    {
+        Stats stats = new Stats();
+        stats.maxQueueSize = queue.size();
+        return stats;
+    }
+
+    /**
+     * Returns the total number of units waiting to be dispatched.
+     */
+    protected int getQueueSize ()
+    {
+        int size = _evqueue.size();
+        if (_shards != null) {
+            for (Shard shard : _shards) {
+                size += shard.queue.size();
+            }
+        }
+        return size;
+    }
+
     protected int getNextOid ()
     {
         // look for the next unused oid. in theory if we had two billion objects, this would loop
@@ -932,7 +1187,7 @@ public class PresentsDObjectMgr
             }
 
             // look up the target object
-            @SuppressWarnings("unchecked") T obj = (T)_objects.get(_oid);
+            @SuppressWarnings("unchecked") T obj = (T)getObject(_oid);
 
             // if we're unsubscribing, take care of that and get on out
             if (_action == UNSUBSCRIBE) {
@@ -971,6 +1226,37 @@ public class PresentsDObjectMgr
         protected int _action;
     }
 
+    /**
+     * Dispatches the units of the objects that belong to it, see {@link #setDispatchShards}.
+     */
+    protected class Shard extends Thread
+    {
+        /** The units waiting to be dispatched by this shard. */
+        public final Queue<Object> queue = new Queue<Object>();
+
+        /** The stats of the current period, only updated by this shard and swapped out by {@link
+         * #getStats}. */
+        public volatile Stats stats = new Stats();
+
+        /** The number of events dispatched by this shard, only accessed by it. */
+        public long eventCount;
+
+        public Shard (int index)
+        {
+            super("DOMGR-" + index);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run ()
+        {
+            Object unit;
+            while ((unit = queue.get()) != SHARD_EXIT) {
+                processUnit(unit);
+            }
+        }
+    }
+
     /**
      * Used to track references of objects in oid lists.
      */
@@ -1062,7 +1348,7 @@ public class PresentsDObjectMgr
     /** Used to assign a unique oid to each distributed object. */
     protected int _nextOid = 0;
 
-    /** Used to track the number of events dispatched over time. */
+    /** Used to track the number of events dispatched over time by the main event thread. */
     protected long _eventCount = 0;
 
     /** Track fatal errors so that we can stick a fork in ourselves if things get too far out of
@@ -1080,7 +1366,11 @@ public class PresentsDObjectMgr
 
     /** keeps Track of which thread is executing the event loop so that other services can enforce
      * restrictions on code that should or should not be called from the event dispatch thread. */
-    protected Thread _dobjThread;
+    protected volatile Thread _dobjThread;
+
+    /** The threads dispatching the events of the objects, or null if we dispatch everything on
+     * the main event thread. */
+    protected Shard[] _shards;
 
     /** A monotonically increasing counter used to assign an id to all dispatched events. */
     protected long _nextEventId = 1;
@@ -1088,8 +1378,10 @@ public class PresentsDObjectMgr
     /** Used to profile our events and runnable units. */
     protected Map<String, UnitProfile> _profiles = Maps.newHashMap();
 
-    /** Used to track runtime statistics. */
-    protected Stats _recent = new Stats(), _current = _recent;
+    /** Used to track runtime statistics. With dispatch shards, {@link #_current} only tracks the
+     * main event thread, the shards tracking their own until they're totalled by {@link
+     * #getStats}. */
+    protected volatile Stats _recent = new Stats(), _current = _recent;
 
     /** Maps event classes to helpers that perform additional processing for particular events. */
     protected Map<Class<?>, EventHelper> _helpers = Maps.newHashMap();
@@ -1103,6 +1395,9 @@ public class PresentsDObjectMgr
     /** Whether or not unit profiling is enabled. */
     protected static final boolean UNIT_PROF_ENABLED = true;
 
+    /** Queued up to let a dispatch shard know that it should exit. */
+    protected static final Object SHARD_EXIT = new Object();
+
     /** The default size of an oid list refs vector. */
     protected static final int DEFREFVEC_SIZE = 4;
 
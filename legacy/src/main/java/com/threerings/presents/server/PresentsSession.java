@@ -625,13 +625,17 @@ public class PresentsSession
      */
     protected void clearSubscrips (boolean verbose)
     {
-        for (ClientProxy rec : _subscrips.values()) {
+        List<ClientProxy> recs;
+        synchronized (_subscrips) {
+            recs = Lists.newArrayList(_subscrips.values());
+            _subscrips.clear();
+        }
+        for (ClientProxy rec : recs) {
             if (verbose) {
                 log.info("Clearing subscription", "client", this, "obj", rec.object.getOid());
             }
             rec.unsubscribe();
         }
-        _subscrips.clear();
     }
 
     /**
@@ -1019,7 +1023,18 @@ public class PresentsSession
 
         public void unsubscribe ()
         {
-            object.removeSubscriber(this);
+            // the subscribers of an object must only be changed by the thread dispatching its
+            // events, which is not necessarily ours when the manager uses dispatch shards
+            final DObject object = this.object;
+            if (_omgr.isDispatchThread(object.getOid())) {
+                object.removeSubscriber(this);
+            } else {
+                _omgr.postRunnable(object.getOid(), new Runnable() {
+                    public void run () {
+                        object.removeSubscriber(ClientProxy.this);
+                    }
+                });
+            }
             unsubscribedFromObject(object);
         }
 
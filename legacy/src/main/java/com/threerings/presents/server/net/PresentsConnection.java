@@ -301,6 +301,8 @@ public class PresentsConnection extends Connection
         // authing connection and we don't want to unnecessarily create it in that case
         if (_oout == null) {
             _oout = new ObjectOutputStream(fout);
+            // let the connection manager share flattened events with other connections
+            _oout.trackMappings();
         }
         return _oout;
     }
@@ -22,6 +22,7 @@
 package com.threerings.presents.server.net;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.samskivert.util.*;
@@ -32,6 +33,8 @@ import com.threerings.nio.conman.NetEventHandler;
 import com.threerings.presents.annotation.AuthInvoker;
 import com.threerings.presents.client.Client;
 import com.threerings.presents.data.PresentsConMgrStats;
+import com.threerings.presents.dobj.DEvent;
+import com.threerings.presents.net.EventNotification;
 import com.threerings.presents.net.Message;
 import com.threerings.presents.net.PingRequest;
 import com.threerings.presents.net.PongResponse;
@@ -49,6 +52,7 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.security.PrivateKey;
 import java.util.List;
+import java.util.Map;
 
 import static com.threerings.presents.Log.log;
 
@@ -116,6 +120,7 @@ public class PresentsConnectionManager extends ConnectionManager
         long bytesOut = stats.bytesOut - _lastStats.bytesOut;
         long msgsIn = stats.msgsIn - _lastStats.msgsIn;
         long msgsOut = stats.msgsOut - _lastStats.msgsOut;
+        int overflowDisconnects = stats.overflowDisconnects - _lastStats.overflowDisconnects;
         if (reset) {
             _lastStats = stats;
         }
@@ -147,6 +152,11 @@ public class PresentsConnectionManager extends ConnectionManager
         long avgOut = (msgsOut == 0) ? 0 : (bytesOut/msgsOut);
         report.append(avgOut).append(" avg size, ");
         report.append(bytesOut*1000/sinceLast).append(" bps\n");
+        report.append("- Network overflow: ");
+        report.append(stats.overQueueSize).append(" msgs, ");
+        report.append(stats.overQueueBytes).append(" bytes, ");
+        report.append(stats.overflowPoolBytes).append(" pooled bytes, ");
+        report.append(overflowDisconnects).append(" disconnects\n");
     }
 
     /**
@@ -252,12 +262,25 @@ public class PresentsConnectionManager extends ConnectionManager
         }
 
         // more sanity check; messages must only be posted from the dobjmgr thread
-        if (!_omgr.isDispatchThread()) {
+        if (!_omgr.isEventThread()) {
             log.warning("Message posted on non-distributed object thread", "conn", conn,
                         "msg", msg, "thread", Thread.currentThread(), new Exception());
             // let it through though as we don't want to break things unnecessarily
         }
 
+        // with dispatch shards, messages may be posted by several threads at once, but our
+        // flattening buffers and the streams of the connections can only serve one at a time
+        synchronized (_framer) {
+            flattenMessage(conn, msg);
+        }
+    }
+
+    /**
+     * Helper function for {@link #postMessage}; flattens the message and queues it up for
+     * delivery.
+     */
+    protected void flattenMessage (PresentsConnection conn, Message msg)
+    {
         try {
             // send it as a datagram if hinted and possible (pongs must be sent as part of the
             // negotation process)
@@ -270,18 +293,46 @@ public class PresentsConnectionManager extends ConnectionManager
             // note the actual transport
             msg.noteActualTransport(Transport.RELIABLE_ORDERED);
 
+            ObjectOutputStream oout = conn.getObjectOutputStream(_framer);
+
+            // an event is forwarded to each of its subscribers in turn, so if another connection
+            // in the same mapping epoch already got this one, we can send them the same bytes
+            DEvent event = (msg instanceof EventNotification) ?
+                ((EventNotification)msg).getEvent() : null;
+            if (event != _sharedEvent) {
+                _sharedEvent = event;
+                _sharedFrames.clear();
+            }
+            MappingEpoch epoch = oout.getMappingEpoch();
+            SharedFrame shared = (event == null || epoch == null) ? null : _sharedFrames.get(epoch);
+            if (shared != null) {
+                oout.applyMappings(shared.mappings);
+                _outq.append(Tuple.<Connection, byte[]>newTuple(conn, shared.data));
+                return;
+            }
+
             _framer.resetFrame();
 
             // flatten this message using the connection's output stream
-            ObjectOutputStream oout = conn.getObjectOutputStream(_framer);
-            oout.writeObject(msg);
-            oout.flush();
-
-            // now extract that data into a byte array
-            ByteBuffer buffer = _framer.frameAndReturnBuffer();
-            byte[] data = new byte[buffer.limit()];
-            buffer.get(data);
-            // log.info("Flattened " + msg + " into " + data.length + " bytes.");
+            byte[] data;
+            List<Object> mappings;
+            try {
+                oout.writeObject(msg);
+                oout.flush();
+
+                // now extract that data into a byte array
+                ByteBuffer buffer = _framer.frameAndReturnBuffer();
+                data = new byte[buffer.limit()];
+                buffer.get(data);
+                // log.info("Flattened " + msg + " into " + data.length + " bytes.");
+
+            } finally {
+                // the stream keeps whatever mappings it created, even if flattening failed
+                mappings = oout.commitMappings();
+            }
+            if (event != null && epoch != null) {
+                _sharedFrames.put(epoch, new SharedFrame(data, mappings));
+            }
 
             // and slap both on the queue
             _outq.append(Tuple.<Connection, byte[]>newTuple(conn, data));
@@ -590,13 +641,29 @@ public class PresentsConnectionManager extends ConnectionManager
         protected void handleError (IOException ioe)
         {
             _handlers.remove(_conn.selkey);
-            _oflowqs.remove(_conn);
+            clearOverflowQueue(_conn);
             _conn.connectFailure(ioe);
         }
 
         protected final Connection _conn;
     }
 
+    /** An event flattened from a mapping epoch, see {@link #postMessage}. */
+    protected static class SharedFrame
+    {
+        /** The framed bytes of the event. */
+        public final byte[] data;
+
+        /** The mappings created while flattening the event. */
+        public final List<Object> mappings;
+
+        public SharedFrame (byte[] data, List<Object> mappings)
+        {
+            this.data = data;
+            this.mappings = mappings;
+        }
+    }
+
     /** Handles client authentication. The base authenticator is injected but optional services
      * like the PeerManager may replace this authenticator with one that intercepts certain types
      * of authentication and then passes normal authentications through. */
@@ -611,6 +678,13 @@ public class PresentsConnectionManager extends ConnectionManager
     protected Queue<OutgoingConnectionHandler> _outfailq = Queue.newQueue();
 
     protected FramingOutputStream _framer = new FramingOutputStream();
+
+    /** The event last flattened by {@link #postMessage}, if the last message was an event. */
+    protected DEvent _sharedEvent;
+
+    /** The frames into which {@link #_sharedEvent} was flattened, by the epoch they were
+     * flattened from. */
+    protected Map<MappingEpoch, SharedFrame> _sharedFrames = Maps.newHashMap();
     protected ByteArrayOutputStream _flattener = new ByteArrayOutputStream();
 
     protected OutgoingConnectionValidator _outConnValidator = OutgoingConnectionValidator.DEFAULT;
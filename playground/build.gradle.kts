@@ -1,11 +1,16 @@
+import java.io.ByteArrayOutputStream
+
 plugins {
     application
+
+    id("org.graalvm.buildtools.native") version "0.9.28" apply false
 }
 
 dependencies {
     implementation(libraries.annotations)
     implementation(libraries.logback)
 
+    implementation(project(":core"))
     implementation(project(":"))
 }
 
@@ -29,4 +34,73 @@ val run by tasks.getting(JavaExec::class) {
             }
         }
     }
-}
\ No newline at end of file
+}
+
+// Native Image //
+
+// opt-in profile building a GraalVM native executable of the playground: ./gradlew -Pnative :playground:nativeCompile
+if (hasProperty("native")) {
+    apply(plugin = "org.graalvm.buildtools.native")
+
+    val reflectionConfig by tasks.registering(JavaExec::class) {
+        description = "Generates the reflection metadata of the streamable and listener classes."
+        val output = layout.buildDirectory.dir("generated/native-image")
+
+        classpath = sourceSets.main.get().output.classesDirs + configurations.runtimeClasspath.get()
+        mainClass.set("net.azzerial.skhc.playground.ReflectionConfig")
+        args(output.get().file("META-INF/native-image/net.azzerial/skhc/reflect-config.json").asFile.absolutePath)
+        outputs.dir(output)
+    }
+    sourceSets.main.get().resources.srcDir(reflectionConfig)
+
+    configure<org.graalvm.buildtools.gradle.dsl.GraalVMExtension> {
+        // community metadata, for logback
+        metadataRepository {
+            enabled.set(true)
+        }
+        binaries.named("main") {
+            imageName.set("skhc-playground")
+            mainClass.set(application.mainClass)
+            buildArgs.add("--no-fallback")
+            buildArgs.add("-H:+ReportExceptionStackTraces")
+        }
+    }
+
+    // decodes a wire capture on the JVM and with the native executable, which must agree on every message
+    // ./gradlew -Pnative -Pcapture=<file> :playground:nativeDecodeCheck
+    tasks.register("nativeDecodeCheck") {
+        group = "verification"
+        description = "Checks that the native executable decodes a wire capture like the JVM."
+        dependsOn("classes", "nativeCompile")
+
+        doLast {
+            val capture = file(property("capture") as String).absolutePath
+            val executable = layout.buildDirectory.file("native/nativeCompile/skhc-playground").get().asFile.absolutePath
+            val jvm = ByteArrayOutputStream()
+            val native = ByteArrayOutputStream()
+
+            javaexec {
+                classpath = sourceSets.main.get().runtimeClasspath
+                mainClass.set(application.mainClass)
+                args("--decode", capture)
+                standardOutput = jvm
+            }
+            exec {
+                commandLine(executable, "--decode", capture)
+                standardOutput = native
+            }
+
+            val digest = { output: ByteArrayOutputStream ->
+                output.toString().lines().firstOrNull { it.startsWith("messages:") }
+            }
+            val footprint = { output: ByteArrayOutputStream ->
+                output.toString().lines().firstOrNull { it.contains(" after start, rss: ") }?.substringAfter("decoded ")
+            }
+            logger.lifecycle("jvm:    ${digest(jvm)} (${footprint(jvm)})")
+            logger.lifecycle("native: ${digest(native)} (${footprint(native)})")
+            if (digest(jvm) == null || digest(jvm) != digest(native)) {
+                throw GradleException("The native executable did not decode $capture like the JVM")
+            }
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package net.azzerial.skhc.playground;
 
+import com.threerings.io.ObjectOutputStream;
+import com.threerings.presents.client.MessageTracker;
+import com.threerings.presents.client.ReplayCommunicator;
+import com.threerings.presents.client.WireReplay;
+import com.threerings.presents.net.DownstreamMessage;
+import com.threerings.presents.net.UpstreamMessage;
 import net.azzerial.skhc.SKClient;
 import net.azzerial.skhc.SKClientBuilder;
 import net.azzerial.skhc.entities.Offer;
@@ -14,6 +20,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.security.auth.login.LoginException;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
 
 public final class Main {
 
@@ -25,7 +39,12 @@ public final class Main {
 
     /* Methods */
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--decode")) {
+            decode(new File(args[1]));
+            return;
+        }
+
         final String username = System.getenv("SPIRAL_KNIGHTS_USERNAME");
         final String password = System.getenv("SPIRAL_KNIGHTS_PASSWORD");
 
@@ -66,8 +85,64 @@ public final class Main {
             if (!client.connect()) {
                 throw new IllegalStateException("This client is already connected!");
             }
+            logFootprint("connected");
         } catch (LoginException e) {
             e.printStackTrace();
         }
     }
+
+    /* Internal */
+
+    // decodes a wire capture and prints a digest of the decoded messages, re-encoded, to compare the decoding of builds
+    private static void decode(@NotNull File capture) throws Exception {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        final long[] messages = new long[1];
+        final IOException[] failure = new IOException[1];
+        ReplayCommunicator.replay(new WireReplay(capture, false), new MessageTracker() {
+            @Override
+            public void messageSent(boolean datagram, int size, UpstreamMessage msg) {}
+
+            @Override
+            public void messageReceived(boolean datagram, int size, DownstreamMessage msg, int missed) {
+                try {
+                    out.writeObject(msg);
+                    out.flush();
+                    digest.update(bytes.toByteArray());
+                    bytes.reset();
+                    messages[0]++;
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw new IOException("Could not decode " + capture, failure[0]);
+        }
+
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        System.out.println("messages: " + messages[0] + ", sha-256: " + hex);
+        logFootprint("decoded");
+    }
+
+    private static void logFootprint(@NotNull String phase) {
+        log.info("{} {}ms after start, rss: {}, peak rss: {}",
+            phase, ManagementFactory.getRuntimeMXBean().getUptime(), readStatus("VmRSS"), readStatus("VmHWM"));
+    }
+
+    @NotNull
+    private static String readStatus(@NotNull String key) {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith(key + ":")) {
+                    return line.substring(key.length() + 1).trim();
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {}
+        return "n/a";
+    }
 }
\ No newline at end of file
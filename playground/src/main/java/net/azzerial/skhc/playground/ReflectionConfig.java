@@ -0,0 +1,137 @@
+package net.azzerial.skhc.playground;
+
+import com.threerings.io.Streamable;
+import net.azzerial.skhc.events.EventListener;
+import net.azzerial.skhc.events.GenericEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Generates the GraalVM {@code reflect-config.json} of the client, for the classes it only reaches through reflection.
+ *
+ * <p>The classpath is scanned for:
+ * <ul>
+ *     <li>every {@link Streamable} and enum of the {@code com.threerings} packages, along with their array types, whose
+ *     fields and constructors are reflected on by the {@code Streamer} and {@code Accessor} and whose names are resolved
+ *     by {@code ObjectInputStream} when reading class mappings;</li>
+ *     <li>every {@link EventListener} and {@link GenericEvent} of the client, whose methods are looked up by the
+ *     {@code ListenerAdapter}.</li>
+ * </ul>
+ *
+ * <p><b>Usage</b>: {@code reflection-config <output file>}
+ */
+public final class ReflectionConfig {
+
+    private static final String[] PACKAGES = { "com.threerings.", "net.azzerial.skhc." };
+
+    /* Constructors */
+
+    private ReflectionConfig() {}
+
+    /* Methods */
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: reflection-config <output file>");
+            System.exit(-1);
+        }
+        final Set<String> names = new TreeSet<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            final File file = new File(entry);
+            if (file.isDirectory()) {
+                scanDirectory(file.toPath(), names);
+            } else if (file.isFile() && entry.endsWith(".jar")) {
+                scanJar(file, names);
+            }
+        }
+
+        final Set<String> streamables = new TreeSet<>();
+        final Set<String> listeners = new TreeSet<>();
+        final ClassLoader loader = ReflectionConfig.class.getClassLoader();
+        for (String name : names) {
+            final Class<?> clazz;
+            try {
+                clazz = Class.forName(name, false, loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                continue;
+            }
+            if (name.startsWith("com.threerings.") && (Streamable.class.isAssignableFrom(clazz) || clazz.isEnum())) {
+                streamables.add(name);
+            } else if (EventListener.class.isAssignableFrom(clazz) || GenericEvent.class.isAssignableFrom(clazz)) {
+                listeners.add(name);
+            }
+        }
+
+        final Path output = Paths.get(args[0]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))) {
+            writer.println("[");
+            boolean first = true;
+            for (String name : streamables) {
+                first = writeEntry(writer, first, name, "\"allDeclaredFields\": true, \"allDeclaredConstructors\": true, \"allDeclaredMethods\": true");
+                first = writeEntry(writer, first, name + "[]", null);
+            }
+            for (String name : listeners) {
+                first = writeEntry(writer, first, name, "\"allDeclaredMethods\": true, \"allPublicMethods\": true");
+            }
+            writer.println();
+            writer.println("]");
+        }
+        System.out.println("Registered " + streamables.size() + " streamable and " + listeners.size() + " listener classes for reflection in " + output);
+    }
+
+    /* Internal */
+
+    private static void scanDirectory(@NotNull Path root, @NotNull Set<String> names) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.map((it) -> root.relativize(it).toString().replace(File.separatorChar, '/'))
+                .forEach((it) -> addClassName(it, names));
+        }
+    }
+
+    private static void scanJar(@NotNull File file, @NotNull Set<String> names) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            final Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                addClassName(entries.nextElement().getName(), names);
+            }
+        }
+    }
+
+    private static void addClassName(@NotNull String path, @NotNull Set<String> names) {
+        if (!path.endsWith(".class") || path.endsWith("module-info.class") || path.endsWith("package-info.class")) {
+            return;
+        }
+        final String name = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+        for (String prefix : PACKAGES) {
+            if (name.startsWith(prefix)) {
+                names.add(name);
+                return;
+            }
+        }
+    }
+
+    private static boolean writeEntry(@NotNull PrintWriter writer, boolean first, @NotNull String name, @Nullable String flags) {
+        if (!first) {
+            writer.println(",");
+        }
+        writer.print("  { \"name\": \"" + name + "\"" + ((flags == null) ? "" : ", " + flags) + " }");
+        return false;
+    }
+}
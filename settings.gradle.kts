@@ -14,6 +14,8 @@ dependencyResolutionManagement {
             library("ant", "org.apache.ant", "ant").version("1.10.11")
             // :playground
             library("logback", "ch.qos.logback", "logback-classic").version("1.3.15")
+            // :benchmarks
+            version("jmh", "1.37")
         }
     }
 }
@@ -21,3 +23,5 @@ dependencyResolutionManagement {
 include("core")
 include("legacy")
 include("playground")
+include("benchmarks")
+include("simulator")
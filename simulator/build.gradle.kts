@@ -0,0 +1,45 @@
+plugins {
+    application
+}
+
+dependencies {
+    implementation(libraries.annotations)
+    implementation(libraries.slf4j)
+    implementation(libraries.guice)
+    implementation(libraries.logback)
+
+    implementation(project(":core"))
+    implementation(project(":"))
+}
+
+application {
+    mainClass.set("net.azzerial.skhc.simulator.Main")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// runs a short simulated session with a client, recording the classes it streams (read back by SKClient#warmup())
+// and the classes the JVM loads (dumped into an AppCDS archive by the root cdsArchive task)
+tasks.register<JavaExec>("startupProfile") {
+    group = "application"
+    description = "Records the startup profile and class list of a client session against the simulator."
+
+    val cdsDirectory = rootProject.layout.buildDirectory.dir("cds").get().asFile
+    val profile = File(cdsDirectory, "skhc.profile")
+    val classList = File(cdsDirectory, "classes.lst")
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set(application.mainClass)
+    args("47624", "20", "--client", "--exit-after", "10")
+    jvmArgs("-Dskhc.startupProfile=${profile.absolutePath}", "-XX:DumpLoadedClassList=${classList.absolutePath}")
+    outputs.files(profile, classList)
+
+    doFirst {
+        cdsDirectory.mkdirs()
+        // the profile is only recorded when it does not exist yet
+        profile.delete()
+    }
+}
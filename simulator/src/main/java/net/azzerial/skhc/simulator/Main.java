@@ -0,0 +1,147 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.threerings.presents.util.SecureUtil;
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.SKClientBuilder;
+import net.azzerial.skhc.events.ListenerAdapter;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import net.azzerial.skhc.services.Service;
+import net.azzerial.skhc.services.exchange.MarketExporter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a standalone {@link Simulator}.
+ *
+ * <p><b>Usage</b>: {@code simulator [port] [updates per second] [--client] [--record <directory>] [--shards <count>] [--exit-after <seconds>] [--export <port>]}
+ * <br>With {@code --client}, a client is connected to the simulator and reports the updates it receives every second.
+ * <br>With {@code --record}, the traffic received by that client is captured to the directory, to be replayed by {@link Replay}.
+ * <br>With {@code --shards}, the events are dispatched by that many threads.
+ * <br>With {@code --exit-after}, the process exits after that many seconds, which lets it record a startup profile.
+ * <br>With {@code --export}, the market received by that client is exported on that local port, as line-delimited JSON.
+ */
+public final class Main {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.simulator");
+
+    /* Constructors */
+
+    private Main() {}
+
+    /* Methods */
+
+    public static void main(String[] args) throws Exception {
+        final Simulator simulator = Simulator.create();
+        boolean withClient = false;
+        File recordDirectory = null;
+        long exitAfter = 0L;
+        int exportPort = -1;
+        int position = 0;
+        for (int i = 0; i < args.length; i++) {
+            final String arg = args[i];
+            if (arg.equals("--client")) {
+                withClient = true;
+            } else if (arg.equals("--record") && i + 1 < args.length) {
+                recordDirectory = new File(args[++i]);
+            } else if (arg.equals("--shards") && i + 1 < args.length) {
+                simulator.setDispatchShards(Integer.parseInt(args[++i]));
+            } else if (arg.equals("--exit-after") && i + 1 < args.length) {
+                exitAfter = Long.parseLong(args[++i]);
+            } else if (arg.equals("--export") && i + 1 < args.length) {
+                exportPort = Integer.parseInt(args[++i]);
+            } else if (position++ == 0) {
+                simulator.setPort(Integer.parseInt(arg));
+            } else {
+                simulator.setUpdateRate(Integer.parseInt(arg));
+            }
+        }
+
+        simulator.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                simulator.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        log.info("{}", simulator);
+        log.info("publicKey: {}", SecureUtil.RSAKeyToString(simulator.getPublicKey()));
+
+        if (exitAfter > 0L) {
+            exitLater(exitAfter);
+        }
+
+        if (withClient) {
+            connectClient(simulator, recordDirectory, exportPort);
+        }
+        simulator.awaitTermination();
+    }
+
+    /* Internal */
+
+    private static void connectClient(@NotNull Simulator simulator, @Nullable File recordDirectory, int exportPort) throws Exception {
+        final AtomicLong updates = new AtomicLong();
+        final SKClient client = SKClientBuilder.create("simulator", "simulator")
+            .setServer("127.0.0.1", simulator.getPort(), simulator.getPublicKey())
+            .enableServices(Service.EXCHANGE)
+            .setWireCaptureDirectory(recordDirectory)
+            .build();
+
+        client.warmup();
+        client.addEventListeners(new ListenerAdapter() {
+            @Override
+            public void onExchangeUpdate(@NotNull ExchangeUpdateEvent event) {
+                updates.incrementAndGet();
+            }
+        });
+        if (!client.connect()) {
+            throw new IllegalStateException("This client is already connected!");
+        }
+        if (exportPort >= 0) {
+            MarketExporter.create(client.getExchangeSubscription())
+                .setPort(exportPort)
+                .start();
+        }
+
+        while (simulator.isRunning()) {
+            Thread.sleep(1000L);
+            log.info("updates/s: {}", updates.getAndSet(0L));
+        }
+    }
+
+    private static void exitLater(long seconds) {
+        final Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+                log.info("Exiting after {}s.", seconds);
+                System.exit(0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Simulator-Exit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.samskivert.util.Interval;
+import com.threerings.presents.server.PresentsDObjectMgr;
+import com.threerings.projectx.exchange.data.ConsolidatedOffer;
+import com.threerings.projectx.exchange.data.ExchangeObject;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Random;
+
+/**
+ * Drives the order book of a simulated {@link ExchangeObject}, at a fixed rate of updates per second.
+ *
+ * <p>The last price follows a random walk, and each update republishes both sides of the order book around it.
+ * <br>All the work happens on the distributed object thread, each update being posted as a single compound event.
+ */
+@Internal
+public final class OrderBookGenerator {
+
+    private static final long MIN_TICK = 1L;
+    private static final int MAX_BURST = 10_000;
+    private static final int MAX_VOLUME = 1_000;
+
+    private final PresentsDObjectMgr omgr;
+    private final ExchangeObject exchange;
+    private final int updateRate;
+    private final int depth;
+    private final Random random;
+
+    private Interval interval;
+    private long startTime;
+    private long updates;
+    private int price;
+
+    /* Constructors */
+
+    OrderBookGenerator(@NotNull PresentsDObjectMgr omgr, @NotNull ExchangeObject exchange, @NotNull Simulator simulator) {
+        this.omgr = omgr;
+        this.exchange = exchange;
+        this.updateRate = simulator.getUpdateRate();
+        this.depth = simulator.getDepth();
+        this.random = new Random(simulator.getSeed());
+        this.price = simulator.getInitialPrice();
+    }
+
+    /* Getters & Setters */
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    /* Methods */
+
+    void start() {
+        publish();
+        this.startTime = System.nanoTime();
+        // tick on the thread dispatching the events of the exchange object, which is not the event thread with dispatch shards
+        this.interval = new Interval(omgr.getRunQueue(exchange.getOid())) {
+            @Override
+            public void expired() {
+                tick();
+            }
+        };
+        interval.schedule(Math.max(MIN_TICK, 1000L / updateRate), true);
+    }
+
+    void stop() {
+        if (interval != null) {
+            interval.cancel();
+            this.interval = null;
+        }
+    }
+
+    /* Internal */
+
+    private void tick() {
+        // catch up with the configured rate, as a tick may carry several updates when it exceeds the timer resolution
+        final long elapsed = System.nanoTime() - startTime;
+        final long due = elapsed * updateRate / 1_000_000_000L;
+        final long burst = Math.min(due - updates, MAX_BURST);
+        for (long i = 0; i < burst; i++) {
+            publish();
+        }
+        if (due - updates > MAX_BURST) {
+            // drop the backlog rather than spiralling when the event thread cannot keep up
+            this.updates = due;
+        }
+    }
+
+    private void publish() {
+        this.price = Math.max(depth + 1, price + (int) Math.round(random.nextGaussian() * Math.max(1, price / 500)));
+
+        final ConsolidatedOffer[] buyOffers = new ConsolidatedOffer[depth];
+        final ConsolidatedOffer[] sellOffers = new ConsolidatedOffer[depth];
+        for (int i = 0; i < depth; i++) {
+            buyOffers[i] = createOffer(price - 1 - i);
+            sellOffers[i] = createOffer(price + 1 + i);
+        }
+
+        exchange.startTransaction();
+        try {
+            exchange.changeAttribute(ExchangeUpdateEvent.LAST_PRICE, price);
+            exchange.changeAttribute(ExchangeUpdateEvent.BUY_OFFERS, buyOffers);
+            exchange.changeAttribute(ExchangeUpdateEvent.SELL_OFFERS, sellOffers);
+        } finally {
+            exchange.commitTransaction();
+        }
+        updates++;
+    }
+
+    @NotNull
+    private ConsolidatedOffer createOffer(int level) {
+        final ConsolidatedOffer offer = new ConsolidatedOffer();
+        offer.price = level;
+        offer.volume = 1 + random.nextInt(MAX_VOLUME);
+        return offer;
+    }
+}
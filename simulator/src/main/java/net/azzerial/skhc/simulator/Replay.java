@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.threerings.presents.client.MessageTracker;
+import com.threerings.presents.client.ReplayCommunicator;
+import com.threerings.presents.client.WireReplay;
+import com.threerings.presents.net.DownstreamMessage;
+import com.threerings.presents.net.UpstreamMessage;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays a wire capture - recorded through {@link com.threerings.presents.client.WireRecorder WireRecorder} - through the
+ * client's decoding and dispatching pipeline, to measure its throughput offline and reproducibly.
+ *
+ * <p>The capture is read by a {@link ReplayCommunicator}, so frames go through the same {@code BlockingCommunicator} to
+ * {@code ClientDObjectMgr} path as live traffic, and the replay ends once the client processed the whole capture.
+ * <br>No service subscribes to the replayed objects, their events are applied and dispatched to no listener.
+ *
+ * <p><b>Usage</b>: {@code replay <capture> [--paced]}
+ * <br>With {@code --paced}, frames are delivered at the pace they were recorded at, otherwise as fast as possible.
+ */
+public final class Replay {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.simulator.Replay");
+
+    /* Constructors */
+
+    private Replay() {}
+
+    /* Methods */
+
+    public static void main(String[] args) throws Exception {
+        File capture = null;
+        boolean paced = false;
+        for (String arg : args) {
+            if (arg.equals("--paced")) {
+                paced = true;
+            } else {
+                capture = new File(arg);
+            }
+        }
+        if (capture == null) {
+            System.err.println("Usage: replay <capture> [--paced]");
+            System.exit(-1);
+        }
+        log.info("{}", run(capture, paced));
+    }
+
+    /**
+     * Replay the provided capture, blocking until the client processed all of it.
+     *
+     * @param capture
+     *        The capture file to replay.
+     * @param paced
+     *        Whether to deliver frames at the pace they were recorded at, or as fast as possible.
+     *
+     * @return The statistics of the replay.
+     *
+     * @throws IOException
+     *         If the capture could not be read.
+     * @throws InterruptedException
+     *         If interrupted while waiting for the replay to complete.
+     */
+    @NotNull
+    public static Result run(@NotNull File capture, boolean paced) throws IOException, InterruptedException {
+        Objects.requireNonNull(capture, "Provided capture cannot be null");
+        final WireReplay replay = new WireReplay(capture, paced);
+        final AtomicLong messages = new AtomicLong();
+        log.info("Replaying {}...", capture);
+        final long elapsed = ReplayCommunicator.replay(replay, new MessageTracker() {
+            @Override
+            public void messageSent(boolean datagram, int size, UpstreamMessage msg) {}
+
+            @Override
+            public void messageReceived(boolean datagram, int size, DownstreamMessage msg, int missed) {
+                messages.incrementAndGet();
+            }
+        });
+        return new Result(replay.getFrames(), replay.getBytes(), messages.get(), elapsed);
+    }
+
+    /* Inner Classes */
+
+    /**
+     * The statistics of a replay.
+     */
+    public static final class Result {
+
+        private final long frames;
+        private final long bytes;
+        private final long messages;
+        private final long elapsed;
+
+        /* Constructors */
+
+        private Result(long frames, long bytes, long messages, long elapsed) {
+            this.frames = frames;
+            this.bytes = bytes;
+            this.messages = messages;
+            this.elapsed = elapsed;
+        }
+
+        /* Getters & Setters */
+
+        public long getFrames() {
+            return frames;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        public long getElapsed(@NotNull TimeUnit unit) {
+            return unit.convert(elapsed, TimeUnit.NANOSECONDS);
+        }
+
+        public double getMessagesPerSecond() {
+            return (elapsed == 0L) ? 0.0 : messages * 1e9 / elapsed;
+        }
+
+        public double getBytesPerSecond() {
+            return (elapsed == 0L) ? 0.0 : bytes * 1e9 / elapsed;
+        }
+
+        /* Methods */
+
+        @Override // Object
+        public String toString() {
+            return '{' +
+                "frames=" + frames +
+                ", bytes=" + bytes +
+                ", messages=" + messages +
+                ", elapsed=" + TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms" +
+                ", messagesPerSecond=" + Math.round(getMessagesPerSecond()) +
+                ", bytesPerSecond=" + Math.round(getBytesPerSecond()) +
+                '}';
+        }
+    }
+}
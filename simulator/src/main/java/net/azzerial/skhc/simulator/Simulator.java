@@ -0,0 +1,385 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.threerings.presents.server.PresentsServer;
+import com.threerings.presents.util.SecureUtil;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embeddable stand-in for the Spiral Knights game server, meant for load and latency testing of the client on a single box.
+ *
+ * <p>The simulator runs the {@code legacy} Presents server stack in-process and speaks the same protocol as the live server,
+ * including the RSA/AES secured authentication - which accepts any credentials -.
+ * <br>It advertises a {@link com.threerings.projectx.data.ProjectXBootstrapData ProjectXBootstrapData} whose exchange object is
+ * driven by a synthetic order book, updated at a configurable rate.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * final Simulator simulator = Simulator.create()
+ *     .setPort(47624)
+ *     .setUpdateRate(100)
+ *     .start();
+ * final SKClient client = SKClientBuilder.create("username", "password")
+ *     .setServer("localhost", simulator.getPort(), simulator.getPublicKey())
+ *     .enableServices(Service.EXCHANGE)
+ *     .build();
+ * }</pre>
+ *
+ * <p>Only one simulator can run per JVM, as the Presents server relies on static state.
+ */
+public final class Simulator {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.simulator.Simulator");
+
+    public static final int DEFAULT_PORT = 47624;
+    private static final int KEY_SIZE = 1024;
+    private static final long START_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private int port = DEFAULT_PORT;
+    private int updateRate = 10;
+    private int depth = 10;
+    private int initialPrice = 5000;
+    private long seed = System.nanoTime();
+    private int dispatchShards = 1;
+
+    private KeyPair keyPair;
+    private SimulatorServer server;
+    private Thread thread;
+
+    /* Constructors */
+
+    private Simulator() {}
+
+    /* Getters & Setters */
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Set the port the simulator listens on, for both TCP and datagram traffic.
+     *
+     * <p><b>Default</b>: {@value #DEFAULT_PORT}
+     *
+     * @param port
+     *        The port to listen on.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided port is not a valid port number.
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setPort(int port) {
+        checkStopped();
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Provided port is not a valid port number: " + port);
+        }
+        this.port = port;
+        return this;
+    }
+
+    public int getUpdateRate() {
+        return updateRate;
+    }
+
+    /**
+     * Set the number of order book updates published on the exchange object every second.
+     *
+     * <p><b>Default</b>: {@code 10}
+     *
+     * @param updateRate
+     *        The number of updates per second.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided rate is not positive.
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setUpdateRate(int updateRate) {
+        checkStopped();
+        if (updateRate <= 0) {
+            throw new IllegalArgumentException("Provided update rate must be positive");
+        }
+        this.updateRate = updateRate;
+        return this;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Set the number of price levels on each side of the order book.
+     *
+     * <p><b>Default</b>: {@code 10}
+     *
+     * @param depth
+     *        The number of buy and sell offers.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided depth is not positive.
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setDepth(int depth) {
+        checkStopped();
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Provided depth must be positive");
+        }
+        this.depth = depth;
+        return this;
+    }
+
+    public int getInitialPrice() {
+        return initialPrice;
+    }
+
+    /**
+     * Set the price the order book starts trading at.
+     *
+     * <p><b>Default</b>: {@code 5000}
+     *
+     * @param initialPrice
+     *        The initial last price.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided price is not positive.
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setInitialPrice(int initialPrice) {
+        checkStopped();
+        if (initialPrice <= 0) {
+            throw new IllegalArgumentException("Provided initial price must be positive");
+        }
+        this.initialPrice = initialPrice;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the order book generator, so that runs can be reproduced.
+     *
+     * <p><b>Default</b>: a random seed
+     *
+     * @param seed
+     *        The seed of the generator.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setSeed(long seed) {
+        checkStopped();
+        this.seed = seed;
+        return this;
+    }
+
+    public int getDispatchShards() {
+        return dispatchShards;
+    }
+
+    /**
+     * Set the number of threads dispatching the events of the distributed objects, each object being bound to one of them.
+     *
+     * <p><b>Default</b>: {@code 1}, dispatching everything on the event thread
+     *
+     * @param dispatchShards
+     *        The number of dispatch threads.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided number of threads is not positive.
+     * @throws IllegalStateException
+     *         If the simulator is running.
+     */
+    @NotNull
+    public Simulator setDispatchShards(int dispatchShards) {
+        checkStopped();
+        if (dispatchShards <= 0) {
+            throw new IllegalArgumentException("Provided number of dispatch shards must be positive");
+        }
+        this.dispatchShards = dispatchShards;
+        return this;
+    }
+
+    /**
+     * Get the RSA public key clients need to secure their authentication with the running simulator.
+     *
+     * @return The public key of the simulator.
+     *
+     * @throws IllegalStateException
+     *         If the simulator is not running.
+     */
+    @NotNull
+    public PublicKey getPublicKey() {
+        if (keyPair == null) {
+            throw new IllegalStateException("The simulator is not running");
+        }
+        return keyPair.getPublic();
+    }
+
+    @Internal
+    @NotNull
+    KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    /* Methods */
+
+    /**
+     * Create a new {@link Simulator} instance, with the default settings.
+     *
+     * @return A new Simulator instance.
+     */
+    @NotNull
+    public static Simulator create() {
+        return new Simulator();
+    }
+
+    /**
+     * Start the simulator, blocking until it accepts connections.
+     *
+     * @return The Simulator instance, to be used for chaining.
+     *
+     * @throws IllegalStateException
+     *         If the simulator is already running, or could not be started.
+     * @throws InterruptedException
+     *         If interrupted while waiting for the simulator to start.
+     */
+    @NotNull
+    public synchronized Simulator start() throws InterruptedException {
+        checkStopped();
+        log.info("Starting the simulator on port {}...", port);
+        this.keyPair = SecureUtil.genRSAKeyPair(KEY_SIZE);
+
+        final Injector injector = Guice.createInjector(
+            new SimulatorServer.SimulatorModule(this),
+            new PresentsServer.PresentsServerModule(SimulatorServer.class)
+        );
+        final SimulatorServer server = (SimulatorServer) injector.getInstance(PresentsServer.class);
+        try {
+            server.init(injector);
+        } catch (Exception e) {
+            this.keyPair = null;
+            throw new IllegalStateException("Could not initialize the simulator", e);
+        }
+
+        final Thread thread = new Thread(server::run, "Simulator");
+        thread.setDaemon(true);
+        thread.start();
+        if (!server.awaitOpen(START_TIMEOUT)) {
+            server.queueShutdown();
+            this.keyPair = null;
+            throw new IllegalStateException("The simulator could not open port " + port);
+        }
+
+        this.server = server;
+        this.thread = thread;
+        log.info("The simulator is running.");
+        return this;
+    }
+
+    /**
+     * Stop the simulator, blocking until its event loop exited.
+     *
+     * @throws InterruptedException
+     *         If interrupted while waiting for the simulator to stop.
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (server == null) {
+            return;
+        }
+        log.info("Stopping the simulator...");
+        server.queueShutdown();
+        thread.join(START_TIMEOUT);
+        this.server = null;
+        this.thread = null;
+        this.keyPair = null;
+        log.info("The simulator has been stopped.");
+    }
+
+    /**
+     * Block until the simulator stopped, whether through {@link #stop()} or because its event loop exited.
+     *
+     * @throws InterruptedException
+     *         If interrupted while waiting for the simulator to stop.
+     */
+    public void awaitTermination() throws InterruptedException {
+        final Thread thread;
+        synchronized (this) {
+            thread = this.thread;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    /* Internal */
+
+    private void checkStopped() {
+        if (server != null) {
+            throw new IllegalStateException("The simulator is running");
+        }
+    }
+
+    @Override // Object
+    public String toString() {
+        return "Simulator{" +
+            "port=" + port +
+            ", updateRate=" + updateRate +
+            ", depth=" + depth +
+            ", initialPrice=" + initialPrice +
+            ", seed=" + seed +
+            ", dispatchShards=" + dispatchShards +
+            ", running=" + (server != null) +
+            '}';
+    }
+}
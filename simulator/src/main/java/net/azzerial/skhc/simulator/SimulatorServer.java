@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Singleton;
+import com.threerings.presents.net.AuthRequest;
+import com.threerings.presents.server.ClientResolver;
+import com.threerings.presents.server.PresentsServer;
+import com.threerings.presents.server.PresentsSession;
+import com.threerings.presents.server.SessionFactory;
+import com.threerings.projectx.exchange.data.ExchangeObject;
+import com.threerings.util.Name;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-process Presents server backing a {@link Simulator}.
+ */
+@Internal
+@Singleton
+public class SimulatorServer extends PresentsServer {
+
+    private final CountDownLatch opened = new CountDownLatch(1);
+    private volatile boolean bound;
+
+    @Inject private Simulator simulator;
+
+    private ExchangeObject exchange;
+    private OrderBookGenerator generator;
+
+    /* Getters & Setters */
+
+    public int getPort() {
+        return simulator.getPort();
+    }
+
+    public int getExchangeOid() {
+        return exchange.getOid();
+    }
+
+    /* Methods */
+
+    @Override // PresentsServer
+    public void init(Injector injector) throws Exception {
+        // the shards must be set up before anything gets registered
+        _omgr.setDispatchShards(simulator.getDispatchShards());
+        super.init(injector);
+
+        // secure the authentication the same way the live server does
+        if (!_conmgr.setPrivateKey(simulator.getKeyPair().getPrivate())) {
+            throw new IllegalStateException("Could not set the private key of the simulator");
+        }
+        _clmgr.setDefaultSessionFactory(new SessionFactory() {
+            @Override
+            public Class<? extends PresentsSession> getSessionClass(AuthRequest areq) {
+                return SimulatorSession.class;
+            }
+
+            @Override
+            public Class<? extends ClientResolver> getClientResolverClass(Name username) {
+                return ClientResolver.class;
+            }
+        });
+
+        this.exchange = _omgr.registerObject(new ExchangeObject());
+        this.generator = new OrderBookGenerator(_omgr, exchange, simulator);
+        generator.start();
+    }
+
+    boolean awaitOpen(long timeout) throws InterruptedException {
+        return opened.await(timeout, TimeUnit.MILLISECONDS) && bound;
+    }
+
+    /* Internal */
+
+    @Override // PresentsServer
+    protected void registerSignalHandlers(Injector injector) {
+        // embedded in the host application, which owns the signals
+    }
+
+    @Override // PresentsServer
+    protected void openToThePublic() {
+        // mirror the default behavior, keeping track of the outcome for awaitOpen()
+        this.bound = _socketAcceptor.bind();
+        if (bound) {
+            _datagramReader.bind();
+            _conmgr.start();
+        } else {
+            queueShutdown();
+        }
+        opened.countDown();
+    }
+
+    @Override // PresentsServer
+    protected int[] getListenPorts() {
+        return new int[] { simulator.getPort() };
+    }
+
+    @Override // PresentsServer
+    protected int[] getDatagramPorts() {
+        return new int[] { simulator.getPort() };
+    }
+
+    @Override // PresentsServer
+    protected void invokerDidShutdown() {
+        generator.stop();
+        opened.countDown();
+    }
+
+    /* Inner Classes */
+
+    /**
+     * Configures the dependencies of a {@link SimulatorServer}.
+     */
+    @Internal
+    public static final class SimulatorModule extends PresentsModule {
+
+        private final Simulator simulator;
+
+        /* Constructors */
+
+        public SimulatorModule(@NotNull Simulator simulator) {
+            this.simulator = simulator;
+        }
+
+        /* Internal */
+
+        @Override // PresentsModule
+        protected void configure() {
+            super.configure();
+            bind(Simulator.class).toInstance(simulator);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.simulator;
+
+import com.google.inject.Inject;
+import com.threerings.presents.net.BootstrapData;
+import com.threerings.presents.server.PresentsSession;
+import com.threerings.projectx.data.ProjectXBootstrapData;
+import org.jetbrains.annotations.ApiStatus.Internal;
+
+import java.net.InetAddress;
+
+/**
+ * A client session on the {@link SimulatorServer}, advertising the simulated objects in its bootstrap data.
+ *
+ * <p>Only the exchange object is simulated, every other oid of the bootstrap data is left to {@code 0}.
+ */
+@Internal
+public class SimulatorSession extends PresentsSession {
+
+    @Inject private SimulatorServer server;
+
+    /* Internal */
+
+    @Override // PresentsSession
+    protected BootstrapData createBootstrapData() {
+        return new ProjectXBootstrapData();
+    }
+
+    @Override // PresentsSession
+    protected void populateBootstrapData(BootstrapData data) {
+        super.populateBootstrapData(data);
+
+        final ProjectXBootstrapData pxData = (ProjectXBootstrapData) data;
+        final int[] ports = new int[] { server.getPort() };
+        pxData.hostname = InetAddress.getLoopbackAddress().getHostAddress();
+        pxData.ports = ports;
+        pxData.datagramPorts = ports;
+        pxData.exchangeOid = server.getExchangeOid();
+    }
+}
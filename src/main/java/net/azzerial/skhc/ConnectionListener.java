@@ -19,11 +19,14 @@ package net.azzerial.skhc;
 import com.threerings.presents.client.Client;
 import com.threerings.presents.client.ClientAdapter;
 import com.threerings.presents.client.LogonException;
+import com.threerings.presents.data.AuthCodes;
 import net.azzerial.skhc.enums.ConnectionStatus;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.SocketTimeoutException;
+
 final class ConnectionListener extends ClientAdapter {
 
     private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.ConnectionListener");
@@ -48,14 +51,27 @@ final class ConnectionListener extends ClientAdapter {
     public void clientDidLogon(Client client) {
         skClient.setConnectionStatus(ConnectionStatus.CONNECTED);
         log.debug("Connection status set to: CONNECTED");
+        skClient.reconnected();
     }
 
     @Override // ClientAdapter
     public void clientFailedToLogon(Client client, Exception cause) {
-        if (cause instanceof LogonException && !((LogonException) cause).isStillInProgress()) {
-            skClient.setConnectionStatus(ConnectionStatus.DISCONNECTED);
-            log.debug("Connection status set to: DISCONNECTED");
-            skClient.setConnectionError(cause);
+        if (cause instanceof LogonException && ((LogonException) cause).isStillInProgress()) {
+            return;
+        }
+        // other failures, such as the server being unreachable, only matter while reconnecting, to retry
+        if (!(cause instanceof LogonException) && !skClient.isReconnecting()) {
+            return;
+        }
+        skClient.setConnectionStatus(ConnectionStatus.DISCONNECTED);
+        log.debug("Connection status set to: DISCONNECTED");
+        skClient.setConnectionError(cause);
+        if (isTransient(cause)) {
+            skClient.reconnectLater();
+        } else if (skClient.isReconnecting()) {
+            // retrying would only get the same answer, e.g. with bad credentials or a banned account
+            log.warn("Could not reconnect to the game server: {}", cause.getMessage());
+            skClient.stopReconnecting();
         }
     }
 
@@ -64,6 +80,10 @@ final class ConnectionListener extends ClientAdapter {
         skClient.setConnectionStatus(ConnectionStatus.DISCONNECTED);
         log.debug("Connection status set to: DISCONNECTED");
         skClient.setConnectionError(cause);
+        if (cause instanceof SocketTimeoutException) {
+            log.warn("The connection went stale: {}", cause.getMessage());
+            skClient.setReconnecting(true);
+        }
     }
 
     @Override // ClientAdapter
@@ -76,5 +96,27 @@ final class ConnectionListener extends ClientAdapter {
     public void clientDidClear(Client client) {
         skClient.setConnectionStatus(ConnectionStatus.DISCONNECTED);
         log.debug("Connection status set to: DISCONNECTED");
+        skClient.reconnect();
+    }
+
+    /* Internal */
+
+    private static boolean isTransient(@NotNull Exception cause) {
+        if (!(cause instanceof LogonException)) {
+            // the server could not be reached or the connection failed while logging on
+            return true;
+        }
+        final String code = cause.getMessage();
+        if (code == null) {
+            return false;
+        }
+        switch (code) {
+            case AuthCodes.SERVER_ERROR:
+            case AuthCodes.SERVER_UNAVAILABLE:
+            case AuthCodes.FAILED_TO_SECURE:
+                return true;
+            default:
+                return false;
+        }
     }
 }
@@ -16,18 +16,26 @@
 
 package net.azzerial.skhc;
 
+import net.azzerial.skhc.entities.Market;
 import net.azzerial.skhc.enums.ConnectionStatus;
 import net.azzerial.skhc.enums.Language;
 import net.azzerial.skhc.enums.Region;
 import net.azzerial.skhc.events.EventListener;
+import net.azzerial.skhc.events.EventStream;
+import net.azzerial.skhc.events.GenericEvent;
 import net.azzerial.skhc.events.ListenerAdapter;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import net.azzerial.skhc.metrics.ConnectionMetrics;
+import net.azzerial.skhc.metrics.MessageMetrics;
 import net.azzerial.skhc.services.Service;
+import net.azzerial.skhc.services.SharedSubscription;
 import org.jetbrains.annotations.CheckReturnValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.security.auth.login.LoginException;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The core of Spiral Knights Headless Client used to register {@link EventListener event listeners} and handle session state.
@@ -90,6 +98,42 @@ public interface SKClient {
      */
     boolean isConnectionStatus(@Nullable ConnectionStatus connectionStatus);
 
+    /**
+     * Get the {@link ConnectionMetrics} of the SKClient instance, which track the latency and clock telemetry of the session.
+     * <br>The metrics are kept across sessions of the same SKClient instance.
+     *
+     * @return The {@link ConnectionMetrics} of this SKClient.
+     *
+     * @see    ConnectionMetrics
+     */
+    @NotNull
+    ConnectionMetrics getConnectionMetrics();
+
+    /**
+     * Get the {@link MessageMetrics} of the SKClient instance, which track the messages exchanged with the game server.
+     * <br>The metrics are only collected when enabled from the {@link SKClientBuilder}, and are kept across sessions of the same SKClient instance.
+     *
+     * @return The {@link MessageMetrics} of this SKClient.
+     *
+     * @see    MessageMetrics
+     * @see    SKClientBuilder#setMessageMetricsEnabled(boolean)
+     */
+    @NotNull
+    MessageMetrics getMessageMetrics();
+
+    /**
+     * Get the {@link SharedSubscription} of the {@link Service#EXCHANGE} service, through which any number of consumers
+     * receive the {@link Market} snapshots and updates of the single exchange subscription of the SKClient instance.
+     * <br>The shared subscription is kept across sessions of the same SKClient instance, and only receives snapshots and deltas while the service is enabled.
+     *
+     * @return The exchange {@link SharedSubscription} of this SKClient.
+     *
+     * @see    SharedSubscription
+     * @see    Service#EXCHANGE
+     */
+    @NotNull
+    SharedSubscription<Market, ExchangeUpdateEvent> getExchangeSubscription();
+
     /* Methods */
 
     /**
@@ -115,6 +159,22 @@ public interface SKClient {
     @CheckReturnValue
     boolean disconnect();
 
+    /**
+     * Prepare, on a background thread, the state the first {@link #connect() connection} would otherwise build while logging on:
+     * the server public key and ciphers, and the serializers of every known message of the protocol.
+     * <br>Calling this right after building the client lets the preparation overlap with the rest of the application startup;
+     * {@link #connect()} does not wait for it and remains correct if it is never called.
+     *
+     * <p>When the {@code skhc.startupProfile} system property names a file, the classes it lists are prepared as well.
+     * If that file does not exist, it is written on exit with the classes streamed during the session.
+     *
+     * @return A {@link CompletableFuture} completed once the client is warmed up. Subsequent calls return the same future.
+     *
+     * @see    #connect()
+     */
+    @NotNull
+    CompletableFuture<Void> warmup();
+
     /**
      * Add all provided {@link EventListener listeners} to the event manager that will be handling events.
      *
@@ -196,4 +256,24 @@ public interface SKClient {
      */
     @NotNull
     SKClient removeEventListeners(@NotNull Collection<Object> listeners);
+
+    /**
+     * Get the typed {@link EventStream} of the provided type of events, whose handlers will only be called for the events of this type.
+     * <br>The stream is bound to the {@link Service} producing the events, which must be enabled for the stream to receive any event.
+     *
+     * @param  eventType
+     *         The type of the events of the stream.
+     *
+     * @return The {@link EventStream} of this type of events.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     * @throws IllegalArgumentException
+     *         If the provided type of events is not produced by any {@link Service}.
+     *
+     * @see    EventStream
+     * @see    Service#getEventType()
+     */
+    @NotNull
+    <E extends GenericEvent> EventStream<E> getEventStream(@NotNull Class<E> eventType);
 }
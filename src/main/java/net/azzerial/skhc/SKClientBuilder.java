@@ -20,13 +20,18 @@ import com.threerings.projectx.data.ProjectXCredentials;
 import net.azzerial.skhc.enums.Language;
 import net.azzerial.skhc.enums.Region;
 import net.azzerial.skhc.events.EventListener;
+import net.azzerial.skhc.metrics.MessageMetrics;
 import net.azzerial.skhc.services.Service;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.File;
+import java.security.PublicKey;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 /**
@@ -55,6 +60,8 @@ public final class SKClientBuilder {
 
     private static final Pattern USERNAME_PATTERN = Pattern.compile("[a-zA-Z0-9](?:_?[a-zA-Z0-9]){3,11}");
     private static final Pattern PASSWORD_PATTERN = Pattern.compile("[a-zA-Z0-9-]*");
+    private static final long DEFAULT_STALE_SILENCE = TimeUnit.SECONDS.toMillis(30);
+    private static final long DEFAULT_STALE_DEADLINE = TimeUnit.SECONDS.toMillis(10);
 
     private final String username;
     private final String password;
@@ -62,6 +69,14 @@ public final class SKClientBuilder {
 
     private Language language;
     private Region region;
+    private long staleSilence = DEFAULT_STALE_SILENCE;
+    private long staleDeadline = DEFAULT_STALE_DEADLINE;
+    private boolean messageMetrics;
+    private boolean jmx;
+    private String hostname;
+    private int port;
+    private PublicKey publicKey;
+    private File wireCaptureDirectory;
 
     /* Constructors */
 
@@ -120,6 +135,141 @@ public final class SKClientBuilder {
         return this;
     }
 
+    /**
+     * Set the timeouts of the watchdog detecting connections to the game server which went stale without failing (half-open connections).
+     * <br>When no message has been received from the server for the {@code silence} duration, the client pings the server.
+     * If the server does not answer within the {@code deadline} duration, the connection is torn down and the client reconnects.
+     *
+     * <p><b>Default</b>: {@code 30} seconds of silence and a {@code 10} seconds deadline
+     *
+     * @param silence
+     *        The time without messages from the server after which it is pinged, or {@code 0} to disable the watchdog.
+     *
+     * @param deadline
+     *        The time the server has to answer the ping.
+     *
+     * @param unit
+     *        The {@link TimeUnit unit} of the provided durations.
+     *
+     * @return The SKClientBuilder instance, to be used for chaining.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     * @throws IllegalArgumentException
+     *         If a provided duration is negative, or if the deadline is {@code 0} while the watchdog is enabled.
+     */
+    @NotNull
+    public SKClientBuilder setStaleConnectionTimeouts(long silence, long deadline, @NotNull TimeUnit unit) {
+        Objects.requireNonNull(unit, "Provided unit cannot be null");
+        if (silence < 0 || deadline < 0) {
+            throw new IllegalArgumentException("Provided durations cannot be negative");
+        }
+        if (silence > 0 && deadline == 0) {
+            throw new IllegalArgumentException("Provided deadline cannot be 0 while the watchdog is enabled");
+        }
+        this.staleSilence = unit.toMillis(silence);
+        this.staleDeadline = unit.toMillis(deadline);
+        return this;
+    }
+
+    /**
+     * Set whether the messages exchanged with the game server are tracked by the {@link MessageMetrics} of the client.
+     * <br>When disabled, no tracker is installed on the connection and the metrics stay empty.
+     *
+     * <p><b>Default</b>: {@code false}
+     *
+     * @param enabled
+     *        Whether the message metrics are collected.
+     *
+     * @return The SKClientBuilder instance, to be used for chaining.
+     *
+     * @see    SKClient#getMessageMetrics()
+     */
+    @NotNull
+    public SKClientBuilder setMessageMetricsEnabled(boolean enabled) {
+        this.messageMetrics = enabled;
+        return this;
+    }
+
+    /**
+     * Set whether the {@link MessageMetrics} of the client are exported as a JMX MBean while the client exists,
+     * under {@code net.azzerial.skhc:type=MessageMetrics,name=<username>}.
+     * <br>The MBean is only registered when the message metrics are {@link #setMessageMetricsEnabled(boolean) enabled}.
+     *
+     * <p><b>Default</b>: {@code false}
+     *
+     * @param enabled
+     *        Whether the message metrics are exported through JMX.
+     *
+     * @return The SKClientBuilder instance, to be used for chaining.
+     *
+     * @see    #setMessageMetricsEnabled(boolean)
+     */
+    @NotNull
+    public SKClientBuilder setJmxEnabled(boolean enabled) {
+        this.jmx = enabled;
+        return this;
+    }
+
+    /**
+     * Set the directory the raw downstream traffic of the client is captured to, one file per connection.
+     * <br>Captures can be replayed offline through the {@code Replay} harness of the {@code simulator} module, to measure
+     * the decoding and dispatching throughput of the client. This is a diagnostic tool, not meant for production use.
+     *
+     * <p><b>Default</b>: {@code null} (disabled)
+     *
+     * @param directory
+     *        The directory to write captures to, or {@code null} to disable the capture.
+     *
+     * @return The SKClientBuilder instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided file is not a directory.
+     */
+    @NotNull
+    public SKClientBuilder setWireCaptureDirectory(@Nullable File directory) {
+        if (directory != null && !directory.isDirectory()) {
+            throw new IllegalArgumentException("Provided file is not a directory: " + directory);
+        }
+        this.wireCaptureDirectory = directory;
+        return this;
+    }
+
+    /**
+     * Set the game server the client will be connected to, instead of the live Spiral Knights server.
+     * <br>This is meant for testing against a local stand-in server, such as the one of the {@code simulator} module.
+     *
+     * <p><b>Default</b>: the live Spiral Knights server
+     *
+     * @param hostname
+     *        The hostname of the server.
+     *
+     * @param port
+     *        The port the server is listening on.
+     *
+     * @param publicKey
+     *        The RSA public key used to secure the authentication with the server.
+     *
+     * @return The SKClientBuilder instance, to be used for chaining.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     * @throws IllegalArgumentException
+     *         If the provided port is not a valid port number.
+     */
+    @NotNull
+    public SKClientBuilder setServer(@NotNull String hostname, int port, @NotNull PublicKey publicKey) {
+        Objects.requireNonNull(hostname, "Provided hostname cannot be null");
+        Objects.requireNonNull(publicKey, "Provided public key cannot be null");
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Provided port is not a valid port number: " + port);
+        }
+        this.hostname = hostname;
+        this.port = port;
+        this.publicKey = publicKey;
+        return this;
+    }
+
     /**
      * Enable the specified {@link Service services} to be active during the session.
      * <br>This will not disable any currently enabled service.
@@ -310,6 +460,6 @@ public final class SKClientBuilder {
         if (region != null) {
             credentials.region = region.getCode();
         }
-        return new SKClientImpl(credentials, services);
+        return new SKClientImpl(credentials, services, staleSilence, staleDeadline, messageMetrics, jmx, hostname, port, publicKey, wireCaptureDirectory);
     }
 }
@@ -19,14 +19,21 @@ package net.azzerial.skhc;
 import com.samskivert.util.RunQueue;
 import com.threerings.presents.client.Client;
 import com.threerings.presents.client.LogonException;
+import com.threerings.presents.client.WireRecorder;
 import com.threerings.presents.data.AuthCodes;
 import com.threerings.presents.net.Credentials;
 import com.threerings.presents.net.UsernamePasswordCreds;
-import com.threerings.presents.util.SecureUtil;
+import net.azzerial.skhc.entities.Market;
 import net.azzerial.skhc.enums.ConnectionStatus;
 import net.azzerial.skhc.events.EventManager;
+import net.azzerial.skhc.events.EventStream;
+import net.azzerial.skhc.events.GenericEvent;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import net.azzerial.skhc.metrics.ConnectionMetrics;
+import net.azzerial.skhc.metrics.MessageMetrics;
 import net.azzerial.skhc.services.Service;
 import net.azzerial.skhc.services.ServiceManager;
+import net.azzerial.skhc.services.SharedSubscription;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.CheckReturnValue;
 import org.jetbrains.annotations.NotNull;
@@ -35,53 +42,63 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.security.auth.login.LoginException;
+import java.io.File;
 import java.security.PublicKey;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Internal
 public final class SKClientImpl implements SKClient {
 
     private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.SKClient");
 
-    private static final PublicKey PUBLIC_KEY;
     private static final String HOSTNAME = "18.233.212.89";
     private static final int[] PORTS = { 47624 };
     private static final String VERSION = "20220124075521";
-
-    static {
-        final String key = "a5ed0dc3892b9472cfb668e236064e989e95945dad18f3d7e7d8e474d6e03de38bc044c3429b9ca649d" +
-            "0881d601c0eb8ffebc3756f0503f73a8ca1760943ea0e8921ad6f8102026586db3133844bbadbcfcfc666d23982d768451" +
-            "1fbf6cd8bb1d02a14270d0854098d16fe88f99c05825b0fe1b6fd497709106f2c418796aaf7aab7c92f26fcd9fbb3c43df" +
-            "48075fed8dd931273a7b0a333c8de5967797874c1944aed65b47f0792b273a529ac22a2dce08dad04eeebeeff67c7bc99b" +
-            "97682bff488038b28e24f4b5eea77ed966caede52f2c1ecf2b403110a9765daa81ddf718129a040823bead3a0bdca70ef6" +
-            "d08f483757a6d3b6e01fbbcb32006b7872bcd#10001";
-        final PublicKey rsaPublicKey = SecureUtil.stringToRSAPublicKey(key);
-
-        if (SecureUtil.ciphersSupported(rsaPublicKey)) {
-            PUBLIC_KEY = rsaPublicKey;
-        } else {
-            throw new ExceptionInInitializerError("Could not construct PUBLIC_KEY");
-        }
-    }
+    private static final long RECONNECT_DELAY = 5000L;
 
     private final Credentials credentials;
     private final EnumSet<Service> services;
+    private final long staleSilence;
+    private final long staleDeadline;
+    private final boolean jmx;
+    private final String hostname;
+    private final int[] ports;
+    private final PublicKey publicKey;
+    private final WireRecorder wireRecorder;
     private final EventManager eventManager = new EventManager();
     private final ConnectionListener connectionListener = new ConnectionListener(this);
+    private final ConnectionMetrics connectionMetrics = new ConnectionMetrics(this);
+    private final MessageMetrics messageMetrics;
+    private final SharedSubscription<Market, ExchangeUpdateEvent> exchangeSubscription = new SharedSubscription<>(Service.EXCHANGE);
 
     private Client client;
     private ServiceManager serviceManager;
     private Exception connectionError;
     private ConnectionStatus connectionStatus = ConnectionStatus.DISCONNECTED;
+    private ScheduledExecutorService reconnectScheduler;
+    private volatile boolean reconnecting;
+    private CompletableFuture<Void> warmup;
 
     /* Constructors */
 
-    SKClientImpl(@NotNull Credentials credentials, @NotNull EnumSet<Service> services) {
+    SKClientImpl(@NotNull Credentials credentials, @NotNull EnumSet<Service> services, long staleSilence, long staleDeadline, boolean messageMetrics, boolean jmx, @Nullable String hostname, int port, @Nullable PublicKey publicKey, @Nullable File wireCaptureDirectory) {
         this.credentials = credentials;
         this.services = services;
+        this.staleSilence = staleSilence;
+        this.staleDeadline = staleDeadline;
+        this.messageMetrics = new MessageMetrics(messageMetrics);
+        this.jmx = jmx;
+        this.hostname = (hostname == null) ? HOSTNAME : hostname;
+        this.ports = (hostname == null) ? PORTS : new int[] { port };
+        this.publicKey = publicKey;
+        this.wireRecorder = (wireCaptureDirectory == null) ? null : new WireRecorder(wireCaptureDirectory, "skhc");
     }
 
     /* Getters & Setters */
@@ -92,6 +109,12 @@ public final class SKClientImpl implements SKClient {
         return client;
     }
 
+    // lets benchmarks and tools drive the services with a client that is not connected to the game server
+    @Internal
+    public void setClient(@Nullable Client client) {
+        this.client = client;
+    }
+
     @NotNull
     @Internal
     public EventManager getEventManager() {
@@ -125,6 +148,34 @@ public final class SKClientImpl implements SKClient {
         return this.connectionStatus == status;
     }
 
+    @Internal
+    public boolean isReconnecting() {
+        return reconnecting;
+    }
+
+    @Internal
+    public void setReconnecting(boolean reconnecting) {
+        this.reconnecting = reconnecting;
+    }
+
+    @NotNull
+    @Override // SKClient
+    public ConnectionMetrics getConnectionMetrics() {
+        return connectionMetrics;
+    }
+
+    @NotNull
+    @Override // SKClient
+    public MessageMetrics getMessageMetrics() {
+        return messageMetrics;
+    }
+
+    @NotNull
+    @Override // SKClient
+    public SharedSubscription<Market, ExchangeUpdateEvent> getExchangeSubscription() {
+        return exchangeSubscription;
+    }
+
     /* Methods */
 
     @CheckReturnValue
@@ -159,6 +210,7 @@ public final class SKClientImpl implements SKClient {
         boolean loggedOff = false;
 
         log.debug("Disconnecting from the game server...");
+        stopReconnecting();
         if (client != null) {
             loggedOff = client.logoff(false);
             try {
@@ -166,6 +218,7 @@ public final class SKClientImpl implements SKClient {
                 serviceManager.unsubscribe();
                 this.client = null;
                 this.serviceManager = null;
+                messageMetrics.unregisterMBean();
                 log.info("The client is now disconnected from the game server.");
             } catch (Exception e) {
                 e.printStackTrace();
@@ -176,6 +229,19 @@ public final class SKClientImpl implements SKClient {
         return loggedOff;
     }
 
+    @NotNull
+    @Override // SKClient
+    public synchronized CompletableFuture<Void> warmup() {
+        if (warmup == null) {
+            this.warmup = CompletableFuture.runAsync(() -> StartupProfile.warmup(publicKey), (it) -> {
+                final Thread thread = new Thread(it, "SKClient-Warmup");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return warmup;
+    }
+
     @NotNull
     @Override // SKClient
     public SKClient addEventListeners(@NotNull Object listener, @NotNull Object... listeners) {
@@ -224,6 +290,63 @@ public final class SKClientImpl implements SKClient {
         return this;
     }
 
+    @NotNull
+    @Override // SKClient
+    public <E extends GenericEvent> EventStream<E> getEventStream(@NotNull Class<E> eventType) {
+        return eventManager.getEventStream(eventType);
+    }
+
+    @Internal
+    public void reconnect() {
+        final Client client = this.client;
+
+        if (!reconnecting || client == null) {
+            return;
+        }
+        log.info("Reconnecting to the game server...");
+        this.serviceManager = null;
+        if (!client.logon()) {
+            log.warn("The client was already connected!");
+        }
+    }
+
+    @Internal
+    public synchronized void reconnectLater() {
+        if (!reconnecting) {
+            return;
+        }
+        if (reconnectScheduler == null) {
+            this.reconnectScheduler = Executors.newSingleThreadScheduledExecutor((it) -> {
+                final Thread thread = new Thread(it, "SKClient-Reconnect");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("Could not reconnect to the game server, retrying in {}ms...", RECONNECT_DELAY);
+        reconnectScheduler.schedule(this::reconnect, RECONNECT_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    @Internal
+    public void reconnected() {
+        if (!reconnecting) {
+            return;
+        }
+        this.reconnecting = false;
+        this.connectionError = null;
+        this.serviceManager = new ServiceManager(this, services);
+        serviceManager.subscribe();
+        log.info("The client is now reconnected to the game server.");
+    }
+
+    @Internal
+    public synchronized void stopReconnecting() {
+        this.reconnecting = false;
+        if (reconnectScheduler != null) {
+            reconnectScheduler.shutdownNow();
+            this.reconnectScheduler = null;
+        }
+    }
+
     @NotNull
     @Override // Object
     public String toString() {
@@ -242,10 +365,20 @@ public final class SKClientImpl implements SKClient {
         final Client client = new Client(credentials, RunQueue.AWT);
 
         client.setVersion(VERSION);
-        client.setPublicKey(PUBLIC_KEY);
+        client.setPublicKey((publicKey == null) ? StartupProfile.DefaultKey.PUBLIC_KEY : publicKey);
         client.setRequireSecureAuth(true);
-        client.setServer(HOSTNAME, PORTS, PORTS);
+        client.setServer(hostname, ports, ports);
         client.addClientObserver(connectionListener);
+        client.setPingTracker(connectionMetrics);
+        client.setStaleConnectionTimeouts(staleSilence, staleDeadline);
+        client.setWireRecorder(wireRecorder);
+        if (messageMetrics.isEnabled()) {
+            client.setMessageTracker(messageMetrics);
+            if (jmx) {
+                messageMetrics.registerMBean(((UsernamePasswordCreds) credentials).getUsername().toString());
+            }
+        }
+        StartupProfile.maybeRecord();
         this.client = client;
         log.debug("The game client has been created.");
     }
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc;
+
+import com.threerings.io.ClassDictionary;
+import com.threerings.io.Streamer;
+import com.threerings.presents.data.ClientObject;
+import com.threerings.presents.data.TimeBaseMarshaller;
+import com.threerings.presents.data.TimeBaseObject;
+import com.threerings.presents.dobj.AttributeChangedEvent;
+import com.threerings.presents.dobj.CompoundEvent;
+import com.threerings.presents.dobj.ElementUpdatedEvent;
+import com.threerings.presents.dobj.EntryAddedEvent;
+import com.threerings.presents.dobj.EntryRemovedEvent;
+import com.threerings.presents.dobj.EntryUpdatedEvent;
+import com.threerings.presents.dobj.InvocationNotificationEvent;
+import com.threerings.presents.dobj.InvocationRequestEvent;
+import com.threerings.presents.dobj.InvocationResponseEvent;
+import com.threerings.presents.dobj.MessageEvent;
+import com.threerings.presents.dobj.ObjectAddedEvent;
+import com.threerings.presents.dobj.ObjectDestroyedEvent;
+import com.threerings.presents.dobj.ObjectRemovedEvent;
+import com.threerings.presents.dobj.OidList;
+import com.threerings.presents.net.AuthRequest;
+import com.threerings.presents.net.AuthResponse;
+import com.threerings.presents.net.BootstrapNotification;
+import com.threerings.presents.net.CompoundDownstreamMessage;
+import com.threerings.presents.net.EventNotification;
+import com.threerings.presents.net.FailureResponse;
+import com.threerings.presents.net.ForwardEventRequest;
+import com.threerings.presents.net.LogoffRequest;
+import com.threerings.presents.net.ObjectResponse;
+import com.threerings.presents.net.PingRequest;
+import com.threerings.presents.net.PongResponse;
+import com.threerings.presents.net.SecureRequest;
+import com.threerings.presents.net.SecureResponse;
+import com.threerings.presents.net.SubscribeRequest;
+import com.threerings.presents.net.UnsubscribeRequest;
+import com.threerings.presents.net.UnsubscribeResponse;
+import com.threerings.presents.net.UpdateThrottleMessage;
+import com.threerings.presents.util.SecureUtil;
+import com.threerings.projectx.data.ProjectXAuthResponseData;
+import com.threerings.projectx.data.ProjectXBootstrapData;
+import com.threerings.projectx.data.ProjectXCredentials;
+import com.threerings.projectx.exchange.data.ConsolidatedOffer;
+import com.threerings.projectx.exchange.data.ExchangeMarshaller;
+import com.threerings.projectx.exchange.data.ExchangeObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-resolves the state the client would otherwise build on its first logon: the default server key and its ciphers,
+ * the handshake random source and the {@link Streamer streamers} of the messages exchanged with the server, which are
+ * registered in the {@link ClassDictionary} shared by the streams of every connection.
+ *
+ * <p>When the {@value #PROPERTY} system property names a file, the classes listed in it are resolved as well.
+ * If that file does not exist yet, the classes streamed by the process are recorded to it on exit, so that the next
+ * run (and a CDS archive built from that run) covers the exact classes of the session.
+ */
+final class StartupProfile {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.StartupProfile");
+
+    static final String PROPERTY = "skhc.startupProfile";
+
+    private static final List<Class<?>> KNOWN_CLASSES = Arrays.asList(
+        // handshake
+        AuthRequest.class, AuthResponse.class, ProjectXAuthResponseData.class, ProjectXCredentials.class,
+        SecureRequest.class, SecureResponse.class, BootstrapNotification.class, ProjectXBootstrapData.class,
+        // session
+        ObjectResponse.class, FailureResponse.class, EventNotification.class, CompoundDownstreamMessage.class,
+        SubscribeRequest.class, UnsubscribeRequest.class, UnsubscribeResponse.class, ForwardEventRequest.class,
+        PingRequest.class, PongResponse.class, UpdateThrottleMessage.class, LogoffRequest.class,
+        // distributed objects
+        ClientObject.class, TimeBaseObject.class, TimeBaseMarshaller.class, OidList.class,
+        AttributeChangedEvent.class, CompoundEvent.class, ElementUpdatedEvent.class, MessageEvent.class,
+        EntryAddedEvent.class, EntryRemovedEvent.class, EntryUpdatedEvent.class,
+        ObjectAddedEvent.class, ObjectRemovedEvent.class, ObjectDestroyedEvent.class,
+        InvocationRequestEvent.class, InvocationResponseEvent.class, InvocationNotificationEvent.class,
+        // exchange
+        ExchangeObject.class, ExchangeMarshaller.class, ConsolidatedOffer.class
+    );
+
+    private static final AtomicBoolean recording = new AtomicBoolean();
+
+    /* Constructors */
+
+    private StartupProfile() {}
+
+    /* Methods */
+
+    static void warmup(@Nullable PublicKey publicKey) {
+        final long start = System.nanoTime();
+
+        if (publicKey == null) {
+            publicKey = DefaultKey.PUBLIC_KEY;
+        } else {
+            SecureUtil.ciphersSupported(publicKey);
+        }
+        SecureUtil.createRandomKey(16);
+
+        int resolved = 0;
+        for (Class<?> clazz : getClasses()) {
+            try {
+                ClassDictionary.getStreamer(clazz);
+                resolved++;
+            } catch (IOException | RuntimeException e) {
+                log.debug("Could not resolve the streamer of {}: {}", clazz.getName(), e.getMessage());
+            }
+        }
+        log.debug("Warmed up {} streamers in {}ms.", resolved, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    static void maybeRecord() {
+        final File file = getFile();
+
+        if (file == null || file.exists() || !recording.compareAndSet(false, true)) {
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> record(file), "SKClient-StartupProfile"));
+        log.info("Recording the startup profile to {} on exit.", file);
+    }
+
+    /* Internal */
+
+    @Nullable
+    private static File getFile() {
+        final String path = System.getProperty(PROPERTY);
+        return (path == null || path.isEmpty()) ? null : new File(path);
+    }
+
+    @NotNull
+    private static Set<Class<?>> getClasses() {
+        final Set<Class<?>> classes = new LinkedHashSet<>(KNOWN_CLASSES);
+        final File file = getFile();
+
+        if (file == null || !file.isFile()) {
+            return classes;
+        }
+        try {
+            final ClassLoader loader = StartupProfile.class.getClassLoader();
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                final String name = line.trim();
+                if (name.isEmpty() || name.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    classes.add(Class.forName(name, false, loader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.debug("Skipping unknown startup profile class {}.", name);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not read the startup profile {}: {}", file, e.getMessage());
+        }
+        return classes;
+    }
+
+    private static void record(@NotNull File file) {
+        final List<String> names = new ArrayList<>();
+
+        names.add("# classes streamed by the client, resolved by SKClient#warmup()");
+        for (Class<?> clazz : Streamer.getStreamedClasses()) {
+            if (!clazz.isArray() && !clazz.isPrimitive()) {
+                names.add(clazz.getName());
+            }
+        }
+        try {
+            final File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            Files.write(file.toPath(), names, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Could not write the startup profile {}: {}", file, e.getMessage());
+        }
+    }
+
+    /* Inner Classes */
+
+    /**
+     * Holds the public key of the official game server, parsed and checked on first use only.
+     */
+    static final class DefaultKey {
+
+        static final PublicKey PUBLIC_KEY;
+
+        static {
+            final String key = "a5ed0dc3892b9472cfb668e236064e989e95945dad18f3d7e7d8e474d6e03de38bc044c3429b9ca649d" +
+                "0881d601c0eb8ffebc3756f0503f73a8ca1760943ea0e8921ad6f8102026586db3133844bbadbcfcfc666d23982d768451" +
+                "1fbf6cd8bb1d02a14270d0854098d16fe88f99c05825b0fe1b6fd497709106f2c418796aaf7aab7c92f26fcd9fbb3c43df" +
+                "48075fed8dd931273a7b0a333c8de5967797874c1944aed65b47f0792b273a529ac22a2dce08dad04eeebeeff67c7bc99b" +
+                "97682bff488038b28e24f4b5eea77ed966caede52f2c1ecf2b403110a9765daa81ddf718129a040823bead3a0bdca70ef6" +
+                "d08f483757a6d3b6e01fbbcb32006b7872bcd#10001";
+            final PublicKey rsaPublicKey = SecureUtil.stringToRSAPublicKey(key);
+
+            if (SecureUtil.ciphersSupported(rsaPublicKey)) {
+                PUBLIC_KEY = rsaPublicKey;
+            } else {
+                throw new ExceptionInInitializerError("Could not construct PUBLIC_KEY");
+            }
+        }
+
+        private DefaultKey() {}
+    }
+}
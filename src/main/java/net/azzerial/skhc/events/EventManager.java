@@ -16,6 +16,7 @@
 
 package net.azzerial.skhc.events;
 
+import net.azzerial.skhc.services.Service;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.UnmodifiableView;
@@ -26,6 +27,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 @Internal
@@ -34,6 +37,8 @@ public final class EventManager {
     private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.events.EventManager");
 
     private final CopyOnWriteArraySet<net.azzerial.skhc.events.EventListener> listeners = new CopyOnWriteArraySet<>();
+    private final ConcurrentHashMap<Class<?>, EventStream<?>> streams = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Service, CopyOnWriteArrayList<EventStream<?>>> serviceStreams = new ConcurrentHashMap<>();
 
     /* Getters & Setters */
 
@@ -44,6 +49,23 @@ public final class EventManager {
         return Collections.unmodifiableList(new ArrayList<>(listeners));
     }
 
+    @Internal
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <E extends GenericEvent> EventStream<E> getEventStream(@NotNull Class<E> eventType) {
+        Objects.requireNonNull(eventType, "Provided event type cannot be null");
+        return (EventStream<E>) streams.computeIfAbsent(eventType, (it) -> {
+            final Service service = Service.fromEventType(eventType);
+
+            if (service == null) {
+                throw new IllegalArgumentException("Provided event type is not produced by any service: " + eventType.getName());
+            }
+            final EventStream<E> stream = new EventStream<>(eventType, service);
+            serviceStreams.computeIfAbsent(service, (key) -> new CopyOnWriteArrayList<>()).add(stream);
+            return stream;
+        });
+    }
+
     /* Methods */
 
     @Internal
@@ -77,5 +99,11 @@ public final class EventManager {
                 }
             }
         }
+        final CopyOnWriteArrayList<EventStream<?>> streams = serviceStreams.get(event.getService());
+        if (streams != null) {
+            for (EventStream<?> stream : streams) {
+                stream.publish(event);
+            }
+        }
     }
 }
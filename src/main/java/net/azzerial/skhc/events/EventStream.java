@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.events;
+
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.services.Service;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A typed stream of the {@link GenericEvent events} of a given type, received by the {@link Service} producing them.
+ * <br>Unlike {@link EventListener event listeners}, which receive the events of every service, the handlers of an
+ * EventStream are only called for the events of its type, without any dispatching on the side of the caller.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * client.getEventStream(ExchangeUpdateEvent.class)
+ *     .addHandler((event) -> System.out.println(event.getMarket()));
+ * }</pre>
+ *
+ * @param <E> The type of the events of the stream.
+ *
+ * @see SKClient#getEventStream(Class)
+ */
+public final class EventStream<E extends GenericEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.events.EventStream");
+
+    private final Class<E> eventType;
+    private final Service service;
+    private final CopyOnWriteArrayList<Consumer<? super E>> handlers = new CopyOnWriteArrayList<>();
+
+    /* Constructors */
+
+    @Internal
+    public EventStream(@NotNull Class<E> eventType, @NotNull Service service) {
+        this.eventType = eventType;
+        this.service = service;
+    }
+
+    /* Getters & Setters */
+
+    /**
+     * The type of the events of this EventStream.
+     *
+     * @return The event type.
+     */
+    @NotNull
+    public Class<E> getEventType() {
+        return eventType;
+    }
+
+    /**
+     * The {@link Service} producing the events of this EventStream.
+     *
+     * @return The {@link Service}.
+     *
+     * @see Service
+     */
+    @NotNull
+    public Service getService() {
+        return service;
+    }
+
+    /* Methods */
+
+    /**
+     * Add a handler which will be called for every event of this EventStream.
+     *
+     * @param  handler
+     *         The handler to add.
+     *
+     * @return The EventStream instance, to be used for chaining.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     */
+    @NotNull
+    public EventStream<E> addHandler(@NotNull Consumer<? super E> handler) {
+        Objects.requireNonNull(handler, "Provided handler cannot be null");
+        handlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Remove a handler from this EventStream.
+     *
+     * @param  handler
+     *         The handler to remove.
+     *
+     * @return The EventStream instance, to be used for chaining.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     */
+    @NotNull
+    public EventStream<E> removeHandler(@NotNull Consumer<? super E> handler) {
+        Objects.requireNonNull(handler, "Provided handler cannot be null");
+        handlers.remove(handler);
+        return this;
+    }
+
+    @Internal
+    public void publish(@NotNull GenericEvent event) {
+        if (!eventType.isInstance(event)) {
+            return;
+        }
+        final E typed = eventType.cast(event);
+
+        for (Consumer<? super E> handler : handlers) {
+            try {
+                handler.accept(typed);
+            } catch (Throwable throwable) {
+                log.error("An EventStream handler had an uncaught exception", throwable);
+                if (throwable instanceof Error) {
+                    throw (Error) throwable;
+                }
+            }
+        }
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "eventType=" + eventType.getSimpleName() +
+            ", service=" + service +
+            ", handlers=" + handlers.size() +
+            '}';
+    }
+}
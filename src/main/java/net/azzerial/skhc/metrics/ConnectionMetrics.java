@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.metrics;
+
+import com.threerings.presents.client.Client;
+import com.threerings.presents.client.PingTracker;
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.SKClientImpl;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and clock telemetry of a {@link SKClient}, fed by the ping/pong exchanges the client has with the game server.
+ *
+ * <p>The values are updated continuously during the session and can be polled from any thread, which allows to tell
+ * a dead connection - growing {@link #getTimeSinceLastMessage() silence} - from a quiet one.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * final ConnectionMetrics metrics = client.getConnectionMetrics();
+ *
+ * System.out.printf("rtt p99: %dms, silent for: %dms\n",
+ *     metrics.getRoundTripTimes().getValueAtPercentile(99),
+ *     metrics.getTimeSinceLastMessage());
+ * }</pre>
+ *
+ * @see SKClient#getConnectionMetrics()
+ * @see Histogram
+ */
+public final class ConnectionMetrics implements PingTracker {
+
+    private final SKClientImpl skClient;
+    private final Histogram roundTripTimes = new Histogram();
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    private volatile long lastRoundTripTime = -1;
+    private volatile long clockDelta;
+    private volatile long clockDrift;
+
+    /* Constructors */
+
+    @Internal
+    public ConnectionMetrics(@NotNull SKClientImpl skClient) {
+        this.skClient = skClient;
+    }
+
+    /* Getters & Setters */
+
+    /**
+     * The distribution of the ping round trip times, in milliseconds, measured since the creation of the {@link SKClient}.
+     * <br>The time spent by the server processing the pings is not included.
+     *
+     * @return The round trip times {@link Histogram}.
+     *
+     * @see Histogram
+     * @see #getLastRoundTripTime()
+     */
+    @NotNull
+    public Histogram getRoundTripTimes() {
+        return roundTripTimes;
+    }
+
+    /**
+     * The most recently measured ping round trip time, in milliseconds.
+     *
+     * @return The last round trip time, or {@code -1} if no ping round trip completed yet.
+     *
+     * @see #getRoundTripTimes()
+     */
+    public long getLastRoundTripTime() {
+        return lastRoundTripTime;
+    }
+
+    /**
+     * The difference between the client clock and the server clock, in milliseconds, as settled by the last clock synchronization.
+     *
+     * @return The client/server clock delta.
+     *
+     * @see #getClockDrift()
+     */
+    public long getClockDelta() {
+        return clockDelta;
+    }
+
+    /**
+     * How much the {@link #getClockDelta() clock delta} moved, in milliseconds, between the last two clock synchronizations.
+     *
+     * @return The clock drift, or {@code 0} if the clock was synchronized less than twice.
+     *
+     * @see #getClockDelta()
+     */
+    public long getClockDrift() {
+        return clockDrift;
+    }
+
+    /**
+     * The number of times the client synchronized its clock with the server, including the synchronization performed after each logon.
+     *
+     * @return The number of clock synchronizations.
+     */
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    /**
+     * The time elapsed, in milliseconds, since the last message was received from the server.
+     *
+     * @return The time since the last received message, or {@code -1} if the client is not connected.
+     */
+    public long getTimeSinceLastMessage() {
+        final Client client = skClient.getClient();
+
+        if (client == null) {
+            return -1;
+        }
+        final long lastRead = client.getLastRead();
+        return lastRead == 0 ? -1 : System.currentTimeMillis() - lastRead;
+    }
+
+    /* Methods */
+
+    @Internal
+    @Override // PingTracker
+    public void pongReceived(long rtt, long delta) {
+        this.lastRoundTripTime = rtt;
+        roundTripTimes.record(rtt);
+    }
+
+    @Internal
+    @Override // PingTracker
+    public void clockSynced(long delta) {
+        if (resyncCount.getAndIncrement() > 0) {
+            this.clockDrift = delta - clockDelta;
+        }
+        this.clockDelta = delta;
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "lastRoundTripTime=" + lastRoundTripTime +
+            ", roundTripTimes=" + roundTripTimes +
+            ", clockDelta=" + clockDelta +
+            ", clockDrift=" + clockDrift +
+            ", resyncCount=" + resyncCount.get() +
+            ", timeSinceLastMessage=" + getTimeSinceLastMessage() +
+            '}';
+    }
+}
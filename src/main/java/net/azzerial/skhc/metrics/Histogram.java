@@ -0,0 +1,177 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.metrics;
+
+import org.jetbrains.annotations.ApiStatus.Internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values, bucketed in the fashion of an HDR histogram.
+ *
+ * <p>Values below {@code 32} are counted exactly, larger values are counted in logarithmic buckets each split into
+ * {@code 16} linear sub-buckets, which keeps the relative error of any reported value under {@code 6.25%} while using
+ * a fixed amount of memory regardless of the recorded range.
+ *
+ * @see ConnectionMetrics
+ * @see MessageMetrics
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKET_HALF_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /* Constructors */
+
+    @Internal
+    public Histogram() {}
+
+    /* Getters & Setters */
+
+    /**
+     * The number of values recorded by this Histogram.
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * The sum of the values recorded by this Histogram.
+     *
+     * @return The sum of the recorded values.
+     */
+    public long getSum() {
+        return totalSum.sum();
+    }
+
+    /**
+     * The smallest value recorded by this Histogram.
+     *
+     * @return The smallest recorded value, or {@code 0} if no value was recorded.
+     */
+    public long getMin() {
+        final long value = min.get();
+        return value == Long.MAX_VALUE ? 0 : value;
+    }
+
+    /**
+     * The largest value recorded by this Histogram.
+     *
+     * @return The largest recorded value, or {@code 0} if no value was recorded.
+     */
+    public long getMax() {
+        final long value = max.get();
+        return value == Long.MIN_VALUE ? 0 : value;
+    }
+
+    /**
+     * The arithmetic mean of the values recorded by this Histogram.
+     *
+     * @return The mean of the recorded values, or {@code 0} if no value was recorded.
+     */
+    public double getMean() {
+        final long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalSum.sum() / count;
+    }
+
+    /**
+     * The value below which the provided percentage of the recorded values fall.
+     *
+     * @param percentile
+     *        The percentile to compute, between {@code 0} and {@code 100}.
+     *
+     * @return The highest value equivalent to the requested percentile, or {@code 0} if no value was recorded.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided percentile is not between {@code 0} and {@code 100}.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Provided percentile must be between 0 and 100");
+        }
+        final long count = totalCount.sum();
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /* Methods */
+
+    @Internal
+    public void record(long value) {
+        final long clamped = Math.max(0, value);
+
+        counts.incrementAndGet(indexOf(clamped));
+        totalCount.increment();
+        totalSum.add(clamped);
+        min.accumulate(clamped);
+        max.accumulate(clamped);
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "count=" + getCount() +
+            ", min=" + getMin() +
+            ", mean=" + String.format("%.2f", getMean()) +
+            ", p50=" + getValueAtPercentile(50) +
+            ", p99=" + getValueAtPercentile(99) +
+            ", max=" + getMax() +
+            '}';
+    }
+
+    /* Internal */
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (int) ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
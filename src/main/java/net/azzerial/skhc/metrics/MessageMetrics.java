@@ -0,0 +1,323 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.metrics;
+
+import com.threerings.presents.client.MessageTracker;
+import com.threerings.presents.net.DownstreamMessage;
+import com.threerings.presents.net.EventNotification;
+import com.threerings.presents.net.UpstreamMessage;
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.SKClientBuilder;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wire-level telemetry of a {@link SKClient}, counting the messages exchanged with the game server by type along with
+ * the distribution of their sizes and the loss rate of the datagram transport.
+ *
+ * <p>Messages are keyed by their class, except for the {@link EventNotification event notifications} which are keyed by
+ * the class of the event they carry, so that the distributed object events dominating the bandwidth can be told apart.
+ * <br>All the counters are lock-free and can be polled from any thread while the session is running.
+ *
+ * <p>The metrics are only collected when enabled through {@link SKClientBuilder#setMessageMetricsEnabled(boolean)},
+ * otherwise no tracker is installed on the connection and every value stays at {@code 0}.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * final MessageMetrics metrics = client.getMessageMetrics();
+ *
+ * metrics.getReceivedStats().forEach((type, sizes) ->
+ *     System.out.printf("%s: %d messages, %d bytes\n", type.getSimpleName(), sizes.getCount(), sizes.getSum()));
+ * }</pre>
+ *
+ * @see SKClient#getMessageMetrics()
+ * @see Histogram
+ */
+public final class MessageMetrics implements MessageTracker, MessageMetricsMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.MessageMetrics");
+
+    private final boolean enabled;
+    private final Histogram sentSizes = new Histogram();
+    private final Histogram receivedSizes = new Histogram();
+    private final ConcurrentHashMap<Class<?>, Histogram> sentStats = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Class<?>, Histogram> receivedStats = new ConcurrentHashMap<>();
+    private final LongAdder datagramsReceived = new LongAdder();
+    private final LongAdder datagramsMissed = new LongAdder();
+    private final LongAdder datagramsOutOfOrder = new LongAdder();
+
+    private ObjectName objectName;
+
+    /* Constructors */
+
+    @Internal
+    public MessageMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /* Getters & Setters */
+
+    /**
+     * Whether the metrics are collected for the {@link SKClient}.
+     *
+     * @return {@code true} if the messages exchanged with the server are being tracked.
+     *
+     * @see SKClientBuilder#setMessageMetricsEnabled(boolean)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The distribution of the sizes, in bytes, of all the messages sent to the server.
+     *
+     * @return The sent message sizes {@link Histogram}.
+     *
+     * @see #getSentStats()
+     */
+    @NotNull
+    public Histogram getSentSizes() {
+        return sentSizes;
+    }
+
+    /**
+     * The distribution of the sizes, in bytes, of all the messages received from the server, including the datagrams
+     * discarded for being received out of order.
+     *
+     * @return The received message sizes {@link Histogram}.
+     *
+     * @see #getReceivedStats()
+     */
+    @NotNull
+    public Histogram getReceivedSizes() {
+        return receivedSizes;
+    }
+
+    /**
+     * The distribution of the sizes, in bytes, of the messages sent to the server, by message type.
+     * <br>The {@link Histogram#getCount() count} and {@link Histogram#getSum() sum} of each histogram give the number
+     * of messages and bytes sent for the type.
+     *
+     * @return An unmodifiable live view of the sent message sizes by type.
+     */
+    @NotNull
+    public Map<Class<?>, Histogram> getSentStats() {
+        return Collections.unmodifiableMap(sentStats);
+    }
+
+    /**
+     * The distribution of the sizes, in bytes, of the messages received from the server, by message type.
+     * <br>The {@link Histogram#getCount() count} and {@link Histogram#getSum() sum} of each histogram give the number
+     * of messages and bytes received for the type.
+     *
+     * @return An unmodifiable live view of the received message sizes by type.
+     */
+    @NotNull
+    public Map<Class<?>, Histogram> getReceivedStats() {
+        return Collections.unmodifiableMap(receivedStats);
+    }
+
+    /**
+     * The number of messages sent to the server.
+     *
+     * @return The number of sent messages.
+     */
+    @Override // MessageMetricsMXBean
+    public long getMessagesSent() {
+        return sentSizes.getCount();
+    }
+
+    /**
+     * The number of bytes sent to the server.
+     *
+     * @return The number of sent bytes.
+     */
+    @Override // MessageMetricsMXBean
+    public long getBytesSent() {
+        return sentSizes.getSum();
+    }
+
+    /**
+     * The number of messages received from the server.
+     *
+     * @return The number of received messages.
+     */
+    @Override // MessageMetricsMXBean
+    public long getMessagesReceived() {
+        return receivedSizes.getCount();
+    }
+
+    /**
+     * The number of bytes received from the server.
+     *
+     * @return The number of received bytes.
+     */
+    @Override // MessageMetricsMXBean
+    public long getBytesReceived() {
+        return receivedSizes.getSum();
+    }
+
+    /**
+     * The number of datagrams received from the server.
+     *
+     * @return The number of received datagrams.
+     */
+    @Override // MessageMetricsMXBean
+    public long getDatagramsReceived() {
+        return datagramsReceived.sum();
+    }
+
+    /**
+     * The number of datagrams sent by the server which never reached the client, as inferred from the gaps in their
+     * sequence numbers.
+     *
+     * @return The number of missed datagrams.
+     */
+    @Override // MessageMetricsMXBean
+    public long getDatagramsMissed() {
+        return datagramsMissed.sum();
+    }
+
+    /**
+     * The number of datagrams discarded for being received after a more recent one.
+     *
+     * @return The number of out of order datagrams.
+     */
+    @Override // MessageMetricsMXBean
+    public long getDatagramsOutOfOrder() {
+        return datagramsOutOfOrder.sum();
+    }
+
+    /**
+     * The ratio of the datagrams sent by the server which never reached the client.
+     *
+     * @return The datagram loss rate, between {@code 0} and {@code 1}.
+     */
+    @Override // MessageMetricsMXBean
+    public double getDatagramLossRate() {
+        final long missed = datagramsMissed.sum();
+        final long total = datagramsReceived.sum() + missed;
+        return total == 0 ? 0 : (double) missed / total;
+    }
+
+    @Internal
+    @Override // MessageMetricsMXBean
+    public Map<String, Long> getSentBytesByType() {
+        return bytesByType(sentStats);
+    }
+
+    @Internal
+    @Override // MessageMetricsMXBean
+    public Map<String, Long> getReceivedBytesByType() {
+        return bytesByType(receivedStats);
+    }
+
+    /* Methods */
+
+    @Internal
+    @Override // MessageTracker
+    public void messageSent(boolean datagram, int size, UpstreamMessage msg) {
+        sentSizes.record(size);
+        statsOf(sentStats, msg.getClass()).record(size);
+    }
+
+    @Internal
+    @Override // MessageTracker
+    public void messageReceived(boolean datagram, int size, DownstreamMessage msg, int missed) {
+        receivedSizes.record(size);
+        if (datagram) {
+            datagramsReceived.increment();
+            if (missed > 0) {
+                datagramsMissed.add(missed);
+            }
+        }
+        if (msg == null) {
+            datagramsOutOfOrder.increment();
+            return;
+        }
+        final Class<?> type = msg instanceof EventNotification
+            ? ((EventNotification) msg).getEvent().getClass()
+            : msg.getClass();
+        statsOf(receivedStats, type).record(size);
+    }
+
+    @Internal
+    public void registerMBean(@NotNull String name) {
+        if (!enabled || objectName != null) {
+            return;
+        }
+        try {
+            final ObjectName objectName = new ObjectName("net.azzerial.skhc:type=MessageMetrics,name=" + name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            log.warn("Could not register the message metrics MBean.", e);
+        }
+    }
+
+    @Internal
+    public void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            log.warn("Could not unregister the message metrics MBean.", e);
+        }
+        this.objectName = null;
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "enabled=" + enabled +
+            ", messagesSent=" + getMessagesSent() +
+            ", bytesSent=" + getBytesSent() +
+            ", messagesReceived=" + getMessagesReceived() +
+            ", bytesReceived=" + getBytesReceived() +
+            ", datagramLossRate=" + String.format("%.4f", getDatagramLossRate()) +
+            '}';
+    }
+
+    /* Internal */
+
+    @NotNull
+    private static Histogram statsOf(@NotNull ConcurrentHashMap<Class<?>, Histogram> stats, @NotNull Class<?> type) {
+        final Histogram histogram = stats.get(type);
+        return histogram != null ? histogram : stats.computeIfAbsent(type, (it) -> new Histogram());
+    }
+
+    @NotNull
+    private static Map<String, Long> bytesByType(@NotNull Map<Class<?>, Histogram> stats) {
+        final Map<String, Long> bytes = new TreeMap<>();
+
+        stats.forEach((type, sizes) -> bytes.merge(type.getSimpleName(), sizes.getSum(), Long::sum));
+        return bytes;
+    }
+}
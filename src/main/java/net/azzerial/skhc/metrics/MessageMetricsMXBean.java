@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX management interface of the {@link MessageMetrics}, registered under
+ * {@code net.azzerial.skhc:type=MessageMetrics,name=<username>} when JMX export is enabled.
+ *
+ * @see MessageMetrics
+ * @see net.azzerial.skhc.SKClientBuilder#setJmxEnabled(boolean)
+ */
+public interface MessageMetricsMXBean {
+
+    long getMessagesSent();
+
+    long getBytesSent();
+
+    long getMessagesReceived();
+
+    long getBytesReceived();
+
+    long getDatagramsReceived();
+
+    long getDatagramsMissed();
+
+    long getDatagramsOutOfOrder();
+
+    double getDatagramLossRate();
+
+    Map<String, Long> getSentBytesByType();
+
+    Map<String, Long> getReceivedBytesByType();
+}
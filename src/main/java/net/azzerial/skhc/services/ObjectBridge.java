@@ -0,0 +1,299 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.services;
+
+import com.threerings.presents.dobj.*;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bridges the events of a {@link DObject} to typed handlers, bound by field name when the service is created.
+ *
+ * <p>The fields of each {@link DObject} class are introspected once, so that every handler registration is checked
+ * against the name and type of the field it targets. Incoming events are then routed by a single lookup of their
+ * name, and their values handed over to the handlers already typed, without any per-event {@code switch} nor reflection.
+ */
+@Internal
+public final class ObjectBridge<T extends DObject> implements AttributeChangeListener, SetListener<DSet.Entry>, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.services.ObjectBridge");
+    private static final ClassValue<Map<String, Class<?>>> schemas = new ClassValue<Map<String, Class<?>>>() {
+        @Override
+        protected Map<String, Class<?>> computeValue(Class<?> type) {
+            return introspect(type);
+        }
+    };
+
+    private final Class<T> type;
+    private final Map<String, Class<?>> schema;
+    private final ConcurrentHashMap<String, List<AttributeHandler<Object>>> attributeHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<Consumer<DSet.Entry>>> addedHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<EntryHandler<DSet.Entry>>> updatedHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<RemovalHandler<DSet.Entry>>> removedHandlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<Consumer<Object[]>>> messageHandlers = new ConcurrentHashMap<>();
+
+    /* Constructors */
+
+    @Internal
+    public ObjectBridge(@NotNull Class<T> type) {
+        this.type = Objects.requireNonNull(type, "Provided type cannot be null");
+        this.schema = schemas.get(type);
+    }
+
+    /* Methods */
+
+    @Internal
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <V> ObjectBridge<T> onAttributeChanged(@NotNull String name, @NotNull Class<V> valueType, @NotNull AttributeHandler<? super V> handler) {
+        final Class<?> fieldType = fieldType(name);
+
+        if (!valueType.isAssignableFrom(fieldType)) {
+            throw new IllegalArgumentException("Field " + type.getSimpleName() + "." + name + " is of type " + fieldType.getName() + ", not " + valueType.getName());
+        }
+        handlers(attributeHandlers, name).add((AttributeHandler<Object>) handler);
+        return this;
+    }
+
+    @Internal
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <E extends DSet.Entry> ObjectBridge<T> onEntryAdded(@NotNull String name, @NotNull Class<E> entryType, @NotNull Consumer<? super E> handler) {
+        requireSet(name);
+        final Consumer<DSet.Entry> typed = (Consumer<DSet.Entry>) handler;
+        handlers(addedHandlers, name).add((entry) -> {
+            if (entryType.isInstance(entry)) {
+                typed.accept(entry);
+            }
+        });
+        return this;
+    }
+
+    @Internal
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <E extends DSet.Entry> ObjectBridge<T> onEntryUpdated(@NotNull String name, @NotNull Class<E> entryType, @NotNull EntryHandler<? super E> handler) {
+        requireSet(name);
+        final EntryHandler<DSet.Entry> typed = (EntryHandler<DSet.Entry>) handler;
+        handlers(updatedHandlers, name).add((entry, oldEntry) -> {
+            if (entryType.isInstance(entry)) {
+                typed.handle(entry, oldEntry);
+            }
+        });
+        return this;
+    }
+
+    @Internal
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public <E extends DSet.Entry> ObjectBridge<T> onEntryRemoved(@NotNull String name, @NotNull Class<E> entryType, @NotNull RemovalHandler<? super E> handler) {
+        requireSet(name);
+        final RemovalHandler<DSet.Entry> typed = (RemovalHandler<DSet.Entry>) handler;
+        handlers(removedHandlers, name).add((key, oldEntry) -> {
+            if (oldEntry == null || entryType.isInstance(oldEntry)) {
+                typed.handle(key, oldEntry);
+            }
+        });
+        return this;
+    }
+
+    @Internal
+    @NotNull
+    public ObjectBridge<T> onMessage(@NotNull String name, @NotNull Consumer<Object[]> handler) {
+        Objects.requireNonNull(name, "Provided name cannot be null");
+        Objects.requireNonNull(handler, "Provided handler cannot be null");
+        handlers(messageHandlers, name).add(handler);
+        return this;
+    }
+
+    @Internal
+    @Override // AttributeChangeListener
+    public void attributeChanged(AttributeChangedEvent event) {
+        final List<AttributeHandler<Object>> handlers = attributeHandlers.get(event.getName());
+
+        if (handlers != null) {
+            for (AttributeHandler<Object> handler : handlers) {
+                try {
+                    handler.handle(event.getValue(), event.getOldValue());
+                } catch (Throwable throwable) {
+                    failed(event, throwable);
+                }
+            }
+        }
+    }
+
+    @Internal
+    @Override // SetListener<>
+    public void entryAdded(EntryAddedEvent<DSet.Entry> event) {
+        final List<Consumer<DSet.Entry>> handlers = addedHandlers.get(event.getName());
+
+        if (handlers != null) {
+            for (Consumer<DSet.Entry> handler : handlers) {
+                try {
+                    handler.accept(event.getEntry());
+                } catch (Throwable throwable) {
+                    failed(event, throwable);
+                }
+            }
+        }
+    }
+
+    @Internal
+    @Override // SetListener<>
+    public void entryUpdated(EntryUpdatedEvent<DSet.Entry> event) {
+        final List<EntryHandler<DSet.Entry>> handlers = updatedHandlers.get(event.getName());
+
+        if (handlers != null) {
+            for (EntryHandler<DSet.Entry> handler : handlers) {
+                try {
+                    handler.handle(event.getEntry(), event.getOldEntry());
+                } catch (Throwable throwable) {
+                    failed(event, throwable);
+                }
+            }
+        }
+    }
+
+    @Internal
+    @Override // SetListener<>
+    public void entryRemoved(EntryRemovedEvent<DSet.Entry> event) {
+        final List<RemovalHandler<DSet.Entry>> handlers = removedHandlers.get(event.getName());
+
+        if (handlers != null) {
+            for (RemovalHandler<DSet.Entry> handler : handlers) {
+                try {
+                    handler.handle(event.getKey(), event.getOldEntry());
+                } catch (Throwable throwable) {
+                    failed(event, throwable);
+                }
+            }
+        }
+    }
+
+    @Internal
+    @Override // MessageListener
+    public void messageReceived(MessageEvent event) {
+        final List<Consumer<Object[]>> handlers = messageHandlers.get(event.getName());
+
+        if (handlers != null) {
+            for (Consumer<Object[]> handler : handlers) {
+                try {
+                    handler.accept(event.getArgs());
+                } catch (Throwable throwable) {
+                    failed(event, throwable);
+                }
+            }
+        }
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "type=" + type.getSimpleName() +
+            ", attributes=" + attributeHandlers.keySet() +
+            ", sets=" + addedHandlers.keySet() +
+            ", messages=" + messageHandlers.keySet() +
+            '}';
+    }
+
+    /* Internal */
+
+    @NotNull
+    private static Map<String, Class<?>> introspect(@NotNull Class<?> type) {
+        final Map<String, Class<?>> fields = new HashMap<>();
+
+        for (Field field : type.getFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                continue;
+            }
+            fields.put(field.getName(), box(field.getType()));
+        }
+        return Collections.unmodifiableMap(fields);
+    }
+
+    @NotNull
+    private static Class<?> box(@NotNull Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    @NotNull
+    private static <H> List<H> handlers(@NotNull ConcurrentHashMap<String, List<H>> handlers, @NotNull String name) {
+        return handlers.computeIfAbsent(name, (it) -> new CopyOnWriteArrayList<>());
+    }
+
+    @NotNull
+    private Class<?> fieldType(@NotNull String name) {
+        Objects.requireNonNull(name, "Provided name cannot be null");
+        final Class<?> fieldType = schema.get(name);
+
+        if (fieldType == null) {
+            throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+        }
+        return fieldType;
+    }
+
+    private void requireSet(@NotNull String name) {
+        if (!DSet.class.isAssignableFrom(fieldType(name))) {
+            throw new IllegalArgumentException("Field " + type.getSimpleName() + "." + name + " is not a DSet");
+        }
+    }
+
+    private void failed(@NotNull DEvent event, @NotNull Throwable throwable) {
+        log.error("An ObjectBridge handler had an uncaught exception on {}", event, throwable);
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+    }
+
+    /* Inner Classes */
+
+    @Internal
+    @FunctionalInterface
+    public interface AttributeHandler<V> {
+
+        void handle(V value, V oldValue);
+    }
+
+    @Internal
+    @FunctionalInterface
+    public interface EntryHandler<E extends DSet.Entry> {
+
+        void handle(E entry, E oldEntry);
+    }
+
+    @Internal
+    @FunctionalInterface
+    public interface RemovalHandler<E extends DSet.Entry> {
+
+        void handle(Comparable<?> key, E oldEntry);
+    }
+}
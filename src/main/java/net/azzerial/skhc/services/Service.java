@@ -21,6 +21,8 @@ import com.threerings.projectx.data.ProjectXBootstrapData;
 import net.azzerial.skhc.SKClient;
 import net.azzerial.skhc.SKClientBuilder;
 import net.azzerial.skhc.SKClientImpl;
+import net.azzerial.skhc.events.EventStream;
+import net.azzerial.skhc.events.GenericEvent;
 import net.azzerial.skhc.events.ListenerAdapter;
 import net.azzerial.skhc.events.exchange.ExchangeEvent;
 import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
@@ -30,6 +32,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * Flags which enable or disable specific services - and thus events - of the {@link SKClient}.
@@ -38,6 +41,11 @@ import java.util.function.Function;
  *     <li><b>EXCHANGE</b> - all events related to the <a href="https://wiki.spiralknights.com/Energy_Depot#Market">energy depot market tab</a>.</li>
  * </ul>
  *
+ * <p>Each service is bound to one of the distributed objects advertised by the server in its {@link ProjectXBootstrapData bootstrap data},
+ * and produces its own type of events, which can be consumed through a typed {@link EventStream}.
+ * <br>The services are all subscribed to at once when the session opens, a single client being able to run every service.
+ *
+ * @see SKClient#getEventStream(Class)
  * @see SKClientBuilder#enableServices(net.azzerial.skhc.services.Service, net.azzerial.skhc.services.Service...) SKClientBuilder.enableServices(Service, Service...)
  * @see SKClientBuilder#enableServices(Collection) SKClientBuilder.enableServices(Collection)
  * @see SKClientBuilder#enableAllServices() SKClientBuilder.enableAllServices()
@@ -62,19 +70,22 @@ public enum Service {
      */
     EXCHANGE(
         "exchange",
-        (client -> ((ProjectXBootstrapData) client.getBootstrapData()).exchangeOid),
+        (data -> data.exchangeOid),
+        ExchangeEvent.class,
         ExchangeService::new
     );
 
     private final String code;
-    private final Function<Client, Integer> oid;
+    private final ToIntFunction<ProjectXBootstrapData> oid;
+    private final Class<? extends GenericEvent> eventType;
     private final Function<SKClientImpl, ServiceSubscriber<?>> constructor;
 
     /* Constructors */
 
-    Service(@NotNull String code, @NotNull Function<Client, Integer> oid, Function<SKClientImpl, @NotNull ServiceSubscriber<?>> constructor) {
+    Service(@NotNull String code, @NotNull ToIntFunction<ProjectXBootstrapData> oid, @NotNull Class<? extends GenericEvent> eventType, Function<SKClientImpl, @NotNull ServiceSubscriber<?>> constructor) {
         this.code = code;
         this.oid = oid;
+        this.eventType = eventType;
         this.constructor = constructor;
     }
 
@@ -90,8 +101,20 @@ public enum Service {
         return code;
     }
 
+    /**
+     * The base type of the {@link GenericEvent events} produced by the service.
+     *
+     * @return The event type of this service.
+     *
+     * @see EventStream
+     */
+    @NotNull
+    public Class<? extends GenericEvent> getEventType() {
+        return eventType;
+    }
+
     int getOid(@NotNull Client client) {
-        return oid.apply(client);
+        return oid.applyAsInt((ProjectXBootstrapData) client.getBootstrapData());
     }
 
     @NotNull
@@ -118,4 +141,22 @@ public enum Service {
         }
         return null;
     }
+
+    /**
+     * Retrieve the Service producing the provided type of events.
+     *
+     * @param  eventType
+     *         The type of the events, or one of its subtypes.
+     *
+     * @return The Service producing the events, otherwise if there is no match returns {@code null}.
+     */
+    @Nullable
+    public static Service fromEventType(@Nullable Class<?> eventType) {
+        for (Service service : values()) {
+            if (eventType != null && service.eventType.isAssignableFrom(eventType)) {
+                return service;
+            }
+        }
+        return null;
+    }
 }
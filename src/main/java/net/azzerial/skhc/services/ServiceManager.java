@@ -16,6 +16,8 @@
 
 package net.azzerial.skhc.services;
 
+import com.threerings.presents.client.Client;
+import com.threerings.presents.client.ClientDObjectMgr;
 import net.azzerial.skhc.SKClientImpl;
 import org.jetbrains.annotations.ApiStatus.Internal;
 import org.jetbrains.annotations.NotNull;
@@ -23,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
@@ -31,12 +34,14 @@ public final class ServiceManager {
 
     private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.services.ServiceManager");
 
+    private final Client client;
     private final CopyOnWriteArraySet<ServiceSubscriber<?>> subscribers;
 
     /* Constructors */
 
     @Internal
     public ServiceManager(@NotNull SKClientImpl skClient, @NotNull EnumSet<Service> services) {
+        this.client = skClient.getClient();
         this.subscribers =
             services.stream()
                 .map((it) -> it.getSubscriber(skClient))
@@ -46,9 +51,19 @@ public final class ServiceManager {
     /* Methods */
 
     @Internal
-    public void subscribe() {
+    @NotNull
+    public CompletableFuture<Void> subscribe() {
         log.debug("Subscribing to the services...");
-        subscribers.forEach(ServiceSubscriber::subscribe);
+        // every subscription is collected into a single batch, sent to the server as one message
+        final ClientDObjectMgr.SubscriptionBatch batch = ((ClientDObjectMgr) client.getDObjectManager()).startBatch();
+        subscribers.forEach((it) -> it.subscribe(batch));
+        return batch.commit().whenComplete((it, cause) -> {
+            if (cause == null) {
+                log.debug("All the services are available.");
+            } else {
+                log.warn("Could not subscribe to all the services.", cause);
+            }
+        });
     }
 
     @Internal
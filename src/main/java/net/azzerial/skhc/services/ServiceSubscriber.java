@@ -26,6 +26,8 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.CompletableFuture;
+
 @Internal
 public abstract class ServiceSubscriber<T extends DObject> implements Subscriber<T>, AttributeChangeListener {
 
@@ -34,23 +36,45 @@ public abstract class ServiceSubscriber<T extends DObject> implements Subscriber
     protected final Client client;
     protected final EventManager eventManager;
     protected final Service service;
+    protected final ObjectBridge<T> bridge;
     protected final SafeSubscriber<T> subscriber;
+    protected final CompletableFuture<Void> availability = new CompletableFuture<>();
 
     /* Constructors */
 
     @Internal
-    public ServiceSubscriber(@NotNull Client client, @NotNull EventManager eventManager, @NotNull Service service) {
+    public ServiceSubscriber(@NotNull Client client, @NotNull EventManager eventManager, @NotNull Service service, @NotNull Class<T> objectType) {
         this.client = client;
         this.eventManager = eventManager;
         this.service = service;
-        this.subscriber = new SafeSubscriber<>(service.getOid(client), this, this);
+        this.bridge = new ObjectBridge<>(objectType);
+        this.subscriber = new SafeSubscriber<>(service.getOid(client), this, this, bridge);
+    }
+
+    /* Getters & Setters */
+
+    @Internal
+    @NotNull
+    public final Service getService() {
+        return service;
+    }
+
+    @Internal
+    @NotNull
+    public final CompletableFuture<Void> getAvailability() {
+        return availability;
     }
 
     /* Methods */
 
     @Internal
     public final void subscribe() {
-        subscriber.subscribe(client.getDObjectManager());
+        subscribe(client.getDObjectManager());
+    }
+
+    @Internal
+    public final void subscribe(@NotNull DObjectManager omgr) {
+        subscriber.subscribe(omgr);
         log.debug("Subscribed to the {} service.", service.getCode());
     }
 
@@ -64,12 +88,14 @@ public abstract class ServiceSubscriber<T extends DObject> implements Subscriber
     @Override // Subscriber<>
     public void objectAvailable(T object) {
         log.trace("[service={}, oid={}] => objectAvailable: {}", service.getCode(), object.getOid(), StringUtil.fieldsToString(object));
+        availability.complete(null);
     }
 
     @Internal
     @Override // Subscriber<>
     public void requestFailed(int oid, ObjectAccessException cause) {
         log.trace("[service={}, oid={}] => requestFailed: {}", service.getCode(), oid, cause);
+        availability.completeExceptionally(cause);
     }
 
     @Internal
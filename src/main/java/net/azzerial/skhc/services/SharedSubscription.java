@@ -0,0 +1,329 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.services;
+
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.events.GenericEvent;
+import org.jetbrains.annotations.ApiStatus.Internal;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A single subscription of a {@link Service} shared by any number of in-process consumers, with snapshot-plus-delta semantics.
+ *
+ * <p>Upon {@link #attach(Consumer, Consumer) attaching}, a consumer first receives the current snapshot of the state
+ * of the service, if any, then every delta published after it, in order and without gaps. A new snapshot is delivered
+ * to every consumer whenever the service (re)subscribes, such as after a reconnection.
+ * <br>All consumers are served by the one subscription of the {@link SKClient}, so adding a consumer costs neither a
+ * login nor any decoding work.
+ *
+ * <p>The handlers of each consumer are called one at a time, in order, on a thread of the SharedSubscription rather
+ * than on the event thread of the SKClient, so that a slow consumer only delays its own snapshots and deltas.
+ * <br>Each consumer has a bounded backlog. A consumer falling behind by more than the {@link #setBacklogLimit(int) backlog limit}
+ * has its queued deltas discarded and replaced by the latest snapshot, so that a slow consumer can not grow the memory of
+ * the process either.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * final SharedSubscription<Market, ExchangeUpdateEvent>.Attachment attachment = client.getExchangeSubscription().attach(
+ *     (market) -> System.out.println("snapshot: " + market),
+ *     (event) -> System.out.println("delta: " + event)
+ * );
+ * ...
+ * attachment.detach();
+ * }</pre>
+ *
+ * @param <S> The type of the snapshots.
+ * @param <D> The type of the deltas.
+ *
+ * @see SKClient#getExchangeSubscription()
+ */
+public final class SharedSubscription<S, D extends GenericEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.services.SharedSubscription");
+
+    public static final int DEFAULT_BACKLOG_LIMIT = 1024;
+
+    private final Service service;
+    private final Object lock = new Object();
+    private final CopyOnWriteArrayList<Attachment> attachments = new CopyOnWriteArrayList<>();
+    private final ExecutorService deliveryExecutor = Executors.newCachedThreadPool((it) -> {
+        final Thread thread = new Thread(it, "SKClient-SharedSubscription");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong resyncs = new AtomicLong();
+
+    private volatile S snapshot;
+    private volatile int backlogLimit = DEFAULT_BACKLOG_LIMIT;
+
+    /* Constructors */
+
+    @Internal
+    public SharedSubscription(@NotNull Service service) {
+        this.service = service;
+    }
+
+    /* Getters & Setters */
+
+    /**
+     * The {@link Service} whose subscription is shared.
+     *
+     * @return The {@link Service}.
+     */
+    @NotNull
+    public Service getService() {
+        return service;
+    }
+
+    /**
+     * The latest snapshot of the state of the service, including the deltas published since.
+     *
+     * @return The latest snapshot, or {@code null} if the service did not subscribe yet.
+     */
+    @Nullable
+    public S getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * The number of consumers attached to this SharedSubscription.
+     *
+     * @return The number of attached consumers.
+     */
+    public int getConsumerCount() {
+        return attachments.size();
+    }
+
+    public int getBacklogLimit() {
+        return backlogLimit;
+    }
+
+    /**
+     * Set the number of snapshots and deltas which can be queued to a single consumer before its queued deltas are
+     * replaced by the latest snapshot.
+     * <br>The limit applies to the deliveries queued after it is set.
+     *
+     * <p><b>Default</b>: {@value #DEFAULT_BACKLOG_LIMIT}
+     *
+     * @param  backlogLimit
+     *         The maximum number of deliveries queued per consumer.
+     *
+     * @return The SharedSubscription instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided limit is not positive.
+     */
+    @NotNull
+    public SharedSubscription<S, D> setBacklogLimit(int backlogLimit) {
+        if (backlogLimit <= 0) {
+            throw new IllegalArgumentException("Provided backlog limit must be positive");
+        }
+        this.backlogLimit = backlogLimit;
+        return this;
+    }
+
+    /**
+     * The number of times a consumer fell behind by more than the backlog limit and had its queued deltas replaced by a snapshot.
+     *
+     * @return The number of resynchronizations, across every consumer ever attached.
+     */
+    public long getResyncCount() {
+        return resyncs.get();
+    }
+
+    /* Methods */
+
+    /**
+     * Attach a consumer to this SharedSubscription.
+     * <br>The snapshot handler is called right away with the current snapshot, if any, then again for each new snapshot,
+     * while the delta handler is called for every delta published after the current snapshot.
+     *
+     * @param  snapshotHandler
+     *         The handler receiving the snapshots.
+     * @param  deltaHandler
+     *         The handler receiving the deltas.
+     *
+     * @return The {@link Attachment} of the consumer, used to detach it.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     */
+    @NotNull
+    public Attachment attach(@NotNull Consumer<? super S> snapshotHandler, @NotNull Consumer<? super D> deltaHandler) {
+        Objects.requireNonNull(snapshotHandler, "Provided snapshot handler cannot be null");
+        Objects.requireNonNull(deltaHandler, "Provided delta handler cannot be null");
+        final Attachment attachment = new Attachment(snapshotHandler, deltaHandler);
+
+        // hold the lock so that no delta is queued between the snapshot and the registration
+        synchronized (lock) {
+            if (snapshot != null) {
+                attachment.enqueueSnapshot(snapshot);
+            }
+            attachments.add(attachment);
+        }
+        return attachment;
+    }
+
+    @Internal
+    public void publishSnapshot(@NotNull S snapshot) {
+        // only queue under the lock, the handlers are called by each attachment on the delivery threads
+        synchronized (lock) {
+            this.snapshot = snapshot;
+            for (Attachment attachment : attachments) {
+                attachment.enqueueSnapshot(snapshot);
+            }
+        }
+    }
+
+    @Internal
+    public void publishDelta(@NotNull S snapshot, @NotNull D delta) {
+        synchronized (lock) {
+            this.snapshot = snapshot;
+            for (Attachment attachment : attachments) {
+                attachment.enqueueDelta(snapshot, delta);
+            }
+        }
+    }
+
+    @Override // Object
+    public String toString() {
+        return '{' +
+            "service=" + service +
+            ", consumers=" + attachments.size() +
+            ", resyncs=" + resyncs.get() +
+            ", snapshot=" + snapshot +
+            '}';
+    }
+
+    /* Inner Classes */
+
+    /**
+     * The attachment of a consumer to a {@link SharedSubscription}.
+     */
+    public final class Attachment {
+
+        private final Consumer<? super S> snapshotHandler;
+        private final Consumer<? super D> deltaHandler;
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+
+        private boolean draining;
+        private long resyncs;
+        private volatile boolean detached;
+
+        /* Constructors */
+
+        private Attachment(@NotNull Consumer<? super S> snapshotHandler, @NotNull Consumer<? super D> deltaHandler) {
+            this.snapshotHandler = snapshotHandler;
+            this.deltaHandler = deltaHandler;
+        }
+
+        /* Getters & Setters */
+
+        /**
+         * The number of times this consumer fell behind by more than the backlog limit and had its queued deltas replaced
+         * by a snapshot.
+         *
+         * @return The number of resynchronizations of this consumer.
+         */
+        public long getResyncCount() {
+            synchronized (pending) {
+                return resyncs;
+            }
+        }
+
+        /* Methods */
+
+        /**
+         * Detach the consumer, which will not receive any further snapshot nor delta.
+         * <br>A handler already being called when detaching completes normally.
+         */
+        public void detach() {
+            this.detached = true;
+            attachments.remove(this);
+            synchronized (pending) {
+                pending.clear();
+            }
+        }
+
+        /* Internal */
+
+        private void enqueueSnapshot(@NotNull S snapshot) {
+            enqueue(() -> snapshotHandler.accept(snapshot), snapshot);
+        }
+
+        private void enqueueDelta(@NotNull S snapshot, @NotNull D delta) {
+            enqueue(() -> deltaHandler.accept(delta), snapshot);
+        }
+
+        private void enqueue(@NotNull Runnable delivery, @NotNull S snapshot) {
+            synchronized (pending) {
+                if (pending.size() >= backlogLimit) {
+                    // the snapshot already includes everything queued, the consumer resumes from it
+                    pending.clear();
+                    this.resyncs++;
+                    SharedSubscription.this.resyncs.incrementAndGet();
+                    delivery = () -> snapshotHandler.accept(snapshot);
+                }
+                pending.add(delivery);
+                if (draining) {
+                    return;
+                }
+                this.draining = true;
+            }
+            deliveryExecutor.execute(this::drain);
+        }
+
+        private void drain() {
+            Runnable delivery;
+            while ((delivery = next()) != null) {
+                if (detached) {
+                    continue;
+                }
+                try {
+                    delivery.run();
+                } catch (Throwable throwable) {
+                    // there is no caller to hand the failure back to, keep serving the consumer
+                    log.error("A SharedSubscription consumer had an uncaught exception", throwable);
+                }
+            }
+        }
+
+        @Nullable
+        private Runnable next() {
+            synchronized (pending) {
+                final Runnable delivery = pending.poll();
+                if (delivery == null) {
+                    this.draining = false;
+                }
+                return delivery;
+            }
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package net.azzerial.skhc.services.exchange;
 
-import com.threerings.presents.dobj.AttributeChangedEvent;
 import com.threerings.projectx.exchange.data.ConsolidatedOffer;
 import com.threerings.projectx.exchange.data.ExchangeObject;
 import net.azzerial.skhc.SKClient;
@@ -47,8 +46,21 @@ public final class ExchangeService extends ServiceSubscriber<ExchangeObject> {
 
     @Internal
     public ExchangeService(@NotNull SKClientImpl skClient) {
-        super(Objects.requireNonNull(skClient.getClient()), skClient.getEventManager(), SERVICE);
+        super(Objects.requireNonNull(skClient.getClient()), skClient.getEventManager(), SERVICE, ExchangeObject.class);
         this.skClient = skClient;
+        bridge
+            .onAttributeChanged(LAST_PRICE, Integer.class, (value, oldValue) -> {
+                this.cache.lastPrice = value;
+                notifyUpdate(LAST_PRICE, oldValue, value);
+            })
+            .onAttributeChanged(BUY_OFFERS, ConsolidatedOffer[].class, (value, oldValue) -> {
+                this.cache.buyOffers = mapOffers(value);
+                notifyUpdate(BUY_OFFERS, mapOffers(oldValue), mapOffers(value));
+            })
+            .onAttributeChanged(SELL_OFFERS, ConsolidatedOffer[].class, (value, oldValue) -> {
+                this.cache.sellOffers = mapOffers(value);
+                notifyUpdate(SELL_OFFERS, mapOffers(oldValue), mapOffers(value));
+            });
     }
 
     /* Methods */
@@ -60,36 +72,22 @@ public final class ExchangeService extends ServiceSubscriber<ExchangeObject> {
         this.cache.lastPrice = object.lastPrice;
         this.cache.buyOffers = mapOffers(object.buyOffers);
         this.cache.sellOffers = mapOffers(object.sellOffers);
-        eventManager.notify(new ExchangeEvent(skClient, cache.toMarketObject()));
-    }
-
-    @Internal
-    @Override // PresentSubscriber<>
-    public void attributeChanged(AttributeChangedEvent event) {
-        super.attributeChanged(event);
-        final AttributeChange attribute = new AttributeChange(event.getName());
-        switch (event.getName()) {
-            case LAST_PRICE:
-                this.cache.lastPrice = (int) event.getValue();
-                attribute.oldValue = event.getOldValue();
-                attribute.newValue = event.getValue();
-                break;
-            case BUY_OFFERS:
-                this.cache.buyOffers = mapOffers((ConsolidatedOffer[]) event.getValue());
-                attribute.oldValue = mapOffers((ConsolidatedOffer[]) event.getOldValue());
-                attribute.newValue = mapOffers((ConsolidatedOffer[]) event.getValue());
-                break;
-            case SELL_OFFERS:
-                this.cache.sellOffers = mapOffers((ConsolidatedOffer[]) event.getValue());
-                attribute.oldValue = mapOffers((ConsolidatedOffer[]) event.getOldValue());
-                attribute.newValue = mapOffers((ConsolidatedOffer[]) event.getValue());
-                break;
-        }
-        eventManager.notify(new ExchangeUpdateEvent(skClient, cache.toMarketObject(), attribute));
+        final ExchangeEvent event = new ExchangeEvent(skClient, cache.toMarketObject());
+        eventManager.notify(event);
+        skClient.getExchangeSubscription().publishSnapshot(event.getMarket());
     }
 
     /* Internal */
 
+    private void notifyUpdate(@NotNull String name, @NotNull Object oldValue, @NotNull Object newValue) {
+        final AttributeChange attribute = new AttributeChange(name);
+        attribute.oldValue = oldValue;
+        attribute.newValue = newValue;
+        final ExchangeUpdateEvent event = new ExchangeUpdateEvent(skClient, cache.toMarketObject(), attribute);
+        eventManager.notify(event);
+        skClient.getExchangeSubscription().publishDelta(event.getMarket(), event);
+    }
+
     @NotNull
     private static Offer[] mapOffers(@NotNull ConsolidatedOffer[] offers) {
         return Arrays.stream(offers)
@@ -0,0 +1,643 @@
+/*
+ * Copyright 2025 Robin Mercier (azzerial)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.azzerial.skhc.services.exchange;
+
+import net.azzerial.skhc.SKClient;
+import net.azzerial.skhc.entities.Market;
+import net.azzerial.skhc.entities.Offer;
+import net.azzerial.skhc.events.exchange.ExchangeUpdateEvent;
+import net.azzerial.skhc.services.SharedSubscription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the exchange {@link Market} snapshots and deltas of a {@link SharedSubscription} over a local socket, for
+ * consumers which do not embed the client.
+ *
+ * <p>The exporter listens on a loopback TCP port. Every consumer connecting to it first receives the current snapshot,
+ * then every delta published after it, as frames of the configured {@link Format}. Consumers only read: anything they
+ * send is ignored.
+ * <br>Each update is encoded once, on the thread publishing it, and queued to every consumer. The sockets are written
+ * by the exporter thread without ever blocking, each write batching all the frames queued since the previous one.
+ *
+ * <p>Each consumer has a bounded buffer. A consumer falling behind by more than the {@link #setBufferLimit(int) buffer limit}
+ * has its queued frames discarded and replaced by a snapshot of the current state, so that a slow reader can neither stall
+ * the game connection nor grow the memory of the process. The sequence numbers of the frames let it detect the gap.
+ *
+ * <p><b>Example</b><br>
+ * <pre>{@code
+ * final MarketExporter exporter = MarketExporter.create(client.getExchangeSubscription())
+ *     .setPort(47700)
+ *     .setFormat(MarketExporter.Format.JSON)
+ *     .start();
+ * ...
+ * exporter.stop();
+ * }</pre>
+ *
+ * @see SKClient#getExchangeSubscription()
+ */
+public final class MarketExporter {
+
+    private static final Logger log = LoggerFactory.getLogger("net.azzerial.skhc.services.exchange.MarketExporter");
+
+    public static final int DEFAULT_PORT = 47700;
+    public static final int DEFAULT_BUFFER_LIMIT = 1 << 20;
+    private static final long STOP_TIMEOUT = TimeUnit.SECONDS.toMillis(5);
+
+    private final SharedSubscription<Market, ExchangeUpdateEvent> subscription;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private int port = DEFAULT_PORT;
+    private Format format = Format.JSON;
+    private int bufferLimit = DEFAULT_BUFFER_LIMIT;
+
+    private volatile SharedSubscription<Market, ExchangeUpdateEvent>.Attachment attachment;
+    private ServerSocketChannel server;
+    private Selector selector;
+    private Thread thread;
+    private volatile boolean running;
+    private long sequence;
+    private long resyncs;
+
+    /* Constructors */
+
+    private MarketExporter(@NotNull SharedSubscription<Market, ExchangeUpdateEvent> subscription) {
+        this.subscription = subscription;
+    }
+
+    /* Getters & Setters */
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Set the loopback TCP port the exporter listens on.
+     * <br>With {@code 0}, an ephemeral port is picked on {@link #start()} and returned by {@link #getPort()}.
+     *
+     * <p><b>Default</b>: {@value #DEFAULT_PORT}
+     *
+     * @param port
+     *        The port to listen on.
+     *
+     * @return The MarketExporter instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided port is not a valid port number.
+     * @throws IllegalStateException
+     *         If the exporter is running.
+     */
+    @NotNull
+    public MarketExporter setPort(int port) {
+        checkStopped();
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Provided port is not a valid port number: " + port);
+        }
+        this.port = port;
+        return this;
+    }
+
+    @NotNull
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Set the {@link Format} of the frames sent to the consumers.
+     *
+     * <p><b>Default</b>: {@link Format#JSON}
+     *
+     * @param format
+     *        The format of the frames.
+     *
+     * @return The MarketExporter instance, to be used for chaining.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     * @throws IllegalStateException
+     *         If the exporter is running.
+     */
+    @NotNull
+    public MarketExporter setFormat(@NotNull Format format) {
+        checkStopped();
+        this.format = Objects.requireNonNull(format, "Provided format cannot be null");
+        return this;
+    }
+
+    public int getBufferLimit() {
+        return bufferLimit;
+    }
+
+    /**
+     * Set the number of bytes which can be queued to a single consumer before its queued frames are replaced by a snapshot.
+     *
+     * <p><b>Default</b>: {@value #DEFAULT_BUFFER_LIMIT}
+     *
+     * @param bufferLimit
+     *        The maximum number of bytes queued per consumer.
+     *
+     * @return The MarketExporter instance, to be used for chaining.
+     *
+     * @throws IllegalArgumentException
+     *         If the provided limit is not positive.
+     * @throws IllegalStateException
+     *         If the exporter is running.
+     */
+    @NotNull
+    public MarketExporter setBufferLimit(int bufferLimit) {
+        checkStopped();
+        if (bufferLimit <= 0) {
+            throw new IllegalArgumentException("Provided buffer limit must be positive");
+        }
+        this.bufferLimit = bufferLimit;
+        return this;
+    }
+
+    /**
+     * The number of consumers currently connected.
+     *
+     * @return The number of connected consumers.
+     */
+    public int getConsumerCount() {
+        synchronized (subscribers) {
+            return subscribers.size();
+        }
+    }
+
+    /**
+     * The number of times a consumer fell behind by more than the buffer limit and had its queued frames replaced by a snapshot.
+     *
+     * @return The number of resynchronizations.
+     */
+    public long getResyncCount() {
+        synchronized (subscribers) {
+            return resyncs;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /* Methods */
+
+    /**
+     * Create a MarketExporter of the provided exchange subscription.
+     *
+     * @param subscription
+     *        The exchange subscription to export, see {@link SKClient#getExchangeSubscription()}.
+     *
+     * @return A new, stopped MarketExporter.
+     *
+     * @throws NullPointerException
+     *         If provided with {@code null}.
+     */
+    @NotNull
+    public static MarketExporter create(@NotNull SharedSubscription<Market, ExchangeUpdateEvent> subscription) {
+        Objects.requireNonNull(subscription, "Provided subscription cannot be null");
+        return new MarketExporter(subscription);
+    }
+
+    /**
+     * Open the port and start exporting the snapshots and deltas of the subscription.
+     *
+     * @return The MarketExporter instance, to be used for chaining.
+     *
+     * @throws IOException
+     *         If the port could not be opened.
+     * @throws IllegalStateException
+     *         If the exporter is already running.
+     */
+    @NotNull
+    public synchronized MarketExporter start() throws IOException {
+        checkStopped();
+        final Selector selector = Selector.open();
+        final ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+
+        this.selector = selector;
+        this.server = server;
+        this.port = server.socket().getLocalPort();
+        this.running = true;
+        this.attachment = subscription.attach(this::publishSnapshot, this::publishDelta);
+        this.thread = new Thread(this::run, "SKClient-MarketExporter");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Exporting the market as {} on port {}.", format, port);
+        return this;
+    }
+
+    /**
+     * Stop exporting, disconnecting every consumer and closing the port.
+     *
+     * @throws InterruptedException
+     *         If interrupted while waiting for the exporter thread to terminate.
+     */
+    public synchronized void stop() throws InterruptedException {
+        // the exporter thread may have already terminated after a failure, in which case this only clears its state
+        if (thread == null) {
+            return;
+        }
+        detach();
+        this.running = false;
+        if (selector.isOpen()) {
+            selector.wakeup();
+        }
+        thread.join(STOP_TIMEOUT);
+        this.thread = null;
+        log.info("The market export on port {} has been stopped.", port);
+    }
+
+    @Override // Object
+    public String toString() {
+        return "MarketExporter{" +
+            "port=" + port +
+            ", format=" + format +
+            ", bufferLimit=" + bufferLimit +
+            ", consumers=" + getConsumerCount() +
+            ", resyncs=" + getResyncCount() +
+            '}';
+    }
+
+    /* Internal */
+
+    private void checkStopped() {
+        if (running) {
+            throw new IllegalStateException("The exporter is running");
+        }
+    }
+
+    private void detach() {
+        final SharedSubscription<Market, ExchangeUpdateEvent>.Attachment attachment = this.attachment;
+        if (attachment != null) {
+            attachment.detach();
+            this.attachment = null;
+        }
+    }
+
+    private void publishSnapshot(@NotNull Market market) {
+        synchronized (subscribers) {
+            final byte[] frame = format.encodeSnapshot(++sequence, System.currentTimeMillis(), market);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(frame, null);
+            }
+        }
+        selector.wakeup();
+    }
+
+    private void publishDelta(@NotNull ExchangeUpdateEvent event) {
+        synchronized (subscribers) {
+            final byte[] frame = format.encodeDelta(++sequence, System.currentTimeMillis(), event);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.enqueue(frame, event.getMarket());
+            }
+        }
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        ((Subscriber) key.attachment()).read();
+                    }
+                }
+                flush();
+            }
+        } catch (IOException e) {
+            log.error("The market export on port {} failed", port, e);
+            this.running = false;
+            detach();
+        } finally {
+            synchronized (subscribers) {
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.closeChannel();
+                }
+                subscribers.clear();
+            }
+            try {
+                server.close();
+                selector.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        final Subscriber subscriber = new Subscriber(channel);
+        subscriber.key = channel.register(selector, SelectionKey.OP_READ, subscriber);
+
+        // hold the lock so that no delta is published between the snapshot and the registration
+        synchronized (subscribers) {
+            final Market snapshot = subscription.getSnapshot();
+            if (snapshot != null) {
+                subscriber.enqueue(format.encodeSnapshot(sequence, System.currentTimeMillis(), snapshot), null);
+            }
+            subscribers.add(subscriber);
+        }
+        log.debug("A market consumer connected from {}.", channel.socket().getRemoteSocketAddress());
+    }
+
+    private void flush() {
+        synchronized (subscribers) {
+            final Iterator<Subscriber> it = subscribers.iterator();
+            while (it.hasNext()) {
+                final Subscriber subscriber = it.next();
+                if (!subscriber.flush()) {
+                    it.remove();
+                    subscriber.closeChannel();
+                }
+            }
+        }
+    }
+
+    /* Inner Classes */
+
+    /**
+     * The encoding of the frames sent to the consumers.
+     */
+    public enum Format {
+
+        /**
+         * Length-prefixed binary frames, all numbers being big-endian.
+         * <pre>
+         * frame    := length:int32 type:int8 sequence:int64 time:int64 body   (length counts the bytes after itself)
+         * snapshot := type 1, body = lastPrice:int32 buyOffers:offers sellOffers:offers
+         * delta    := type 2, body = attribute:int8 value
+         *             attribute 1 (lastPrice): value = int32
+         *             attribute 2 (buyOffers), 3 (sellOffers): value = offers
+         * offers   := count:int32 (price:int32 volume:int32){count}
+         * </pre>
+         */
+        BINARY {
+            @NotNull
+            @Override
+            byte[] encodeSnapshot(long sequence, long time, @NotNull Market market) {
+                return encode(SNAPSHOT, sequence, time, (out) -> {
+                    out.writeInt(market.lastPrice);
+                    writeOffers(out, market.buyOffers);
+                    writeOffers(out, market.sellOffers);
+                });
+            }
+
+            @NotNull
+            @Override
+            byte[] encodeDelta(long sequence, long time, @NotNull ExchangeUpdateEvent event) {
+                return encode(DELTA, sequence, time, (out) -> {
+                    switch (event.getAttributeName()) {
+                        case ExchangeUpdateEvent.LAST_PRICE:
+                            out.writeByte(1);
+                            out.writeInt((int) event.getNewValue());
+                            break;
+                        case ExchangeUpdateEvent.BUY_OFFERS:
+                            out.writeByte(2);
+                            writeOffers(out, (Offer[]) event.getNewValue());
+                            break;
+                        case ExchangeUpdateEvent.SELL_OFFERS:
+                            out.writeByte(3);
+                            writeOffers(out, (Offer[]) event.getNewValue());
+                            break;
+                    }
+                });
+            }
+
+            private byte[] encode(int type, long sequence, long time, @NotNull BodyWriter body) {
+                try {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+                    final DataOutputStream out = new DataOutputStream(bytes);
+                    out.writeInt(0);
+                    out.writeByte(type);
+                    out.writeLong(sequence);
+                    out.writeLong(time);
+                    body.write(out);
+                    final byte[] frame = bytes.toByteArray();
+                    ByteBuffer.wrap(frame).putInt(0, frame.length - 4);
+                    return frame;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private void writeOffers(@NotNull DataOutputStream out, @NotNull Offer[] offers) throws IOException {
+                out.writeInt(offers.length);
+                for (Offer offer : offers) {
+                    out.writeInt(offer.price);
+                    out.writeInt(offer.volume);
+                }
+            }
+        },
+
+        /**
+         * Line-delimited JSON, one object per frame.
+         * <pre>
+         * {"type":"snapshot","sequence":1,"time":1700000000000,"lastPrice":5000,"buyOffers":[{"price":4990,"volume":100}],"sellOffers":[...]}
+         * {"type":"delta","sequence":2,"time":1700000000100,"attribute":"lastPrice","value":5010}
+         * {"type":"delta","sequence":3,"time":1700000000200,"attribute":"buyOffers","value":[{"price":4995,"volume":200}]}
+         * </pre>
+         */
+        JSON {
+            @NotNull
+            @Override
+            byte[] encodeSnapshot(long sequence, long time, @NotNull Market market) {
+                final StringBuilder json = header("snapshot", sequence, time)
+                    .append(",\"lastPrice\":").append(market.lastPrice)
+                    .append(",\"buyOffers\":");
+                appendOffers(json, market.buyOffers).append(",\"sellOffers\":");
+                appendOffers(json, market.sellOffers).append("}\n");
+                return json.toString().getBytes(StandardCharsets.UTF_8);
+            }
+
+            @NotNull
+            @Override
+            byte[] encodeDelta(long sequence, long time, @NotNull ExchangeUpdateEvent event) {
+                final StringBuilder json = header("delta", sequence, time)
+                    .append(",\"attribute\":\"").append(event.getAttributeName())
+                    .append("\",\"value\":");
+                final Object value = event.getNewValue();
+                if (value instanceof Offer[]) {
+                    appendOffers(json, (Offer[]) value);
+                } else {
+                    json.append(value);
+                }
+                return json.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+            }
+
+            @NotNull
+            private StringBuilder header(@NotNull String type, long sequence, long time) {
+                return new StringBuilder(256)
+                    .append("{\"type\":\"").append(type)
+                    .append("\",\"sequence\":").append(sequence)
+                    .append(",\"time\":").append(time);
+            }
+
+            @NotNull
+            private StringBuilder appendOffers(@NotNull StringBuilder json, @NotNull Offer[] offers) {
+                json.append('[');
+                for (int i = 0; i < offers.length; i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    json.append("{\"price\":").append(offers[i].price)
+                        .append(",\"volume\":").append(offers[i].volume).append('}');
+                }
+                return json.append(']');
+            }
+        };
+
+        private static final int SNAPSHOT = 1;
+        private static final int DELTA = 2;
+
+        @NotNull
+        abstract byte[] encodeSnapshot(long sequence, long time, @NotNull Market market);
+
+        @NotNull
+        abstract byte[] encodeDelta(long sequence, long time, @NotNull ExchangeUpdateEvent event);
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+
+        void write(@NotNull DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A connected consumer, whose queue is guarded by the subscribers lock.
+     */
+    private final class Subscriber {
+
+        private final SocketChannel channel;
+        private final ArrayDeque<ByteBuffer> frames = new ArrayDeque<>();
+        private final ByteBuffer discard = ByteBuffer.allocate(256);
+        private SelectionKey key;
+        private int queued;
+
+        /* Constructors */
+
+        private Subscriber(@NotNull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /* Internal */
+
+        // with a snapshot, a frame overflowing the buffer is replaced by it rather than dropped with the queue
+        private void enqueue(@NotNull byte[] frame, @Nullable Market snapshot) {
+            if (queued + frame.length > bufferLimit) {
+                final ByteBuffer head = frames.peekFirst();
+                frames.clear();
+                this.queued = 0;
+                // a partially written frame must be completed for the stream to stay readable
+                if (head != null && head.position() > 0) {
+                    frames.add(head);
+                    this.queued = head.remaining();
+                }
+                resyncs++;
+                if (snapshot != null) {
+                    frame = format.encodeSnapshot(sequence, System.currentTimeMillis(), snapshot);
+                }
+            }
+            frames.add(ByteBuffer.wrap(frame));
+            this.queued += frame.length;
+        }
+
+        private void read() {
+            try {
+                discard.clear();
+                if (channel.read(discard) >= 0) {
+                    return;
+                }
+            } catch (IOException ignored) {}
+            synchronized (subscribers) {
+                subscribers.remove(this);
+            }
+            closeChannel();
+        }
+
+        // returns false if the consumer disconnected
+        private boolean flush() {
+            if (frames.isEmpty()) {
+                return true;
+            }
+            try {
+                final long written = channel.write(frames.toArray(new ByteBuffer[0]));
+                this.queued -= (int) written;
+                while (!frames.isEmpty() && !frames.peekFirst().hasRemaining()) {
+                    frames.removeFirst();
+                }
+            } catch (IOException e) {
+                log.debug("A market consumer disconnected: {}", e.getMessage());
+                return false;
+            }
+            if (key.isValid()) {
+                key.interestOps(frames.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+            return true;
+        }
+
+        private void closeChannel() {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}